@@ -0,0 +1,118 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.EventIndex;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.OptionalCoverageQuery;
+import com.google.sps.PackedFindMeetingQuery;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput and latency of the meeting query engines on synthetic calendars. Run with
+ * {@code -prof gc} to also report allocation rates; see the README for examples.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  // The number of distinct requests cycled through, to keep the JIT from specializing on one.
+  private static final int REQUESTS = 64;
+  private static final long DURATION_30_MINUTES = 30;
+
+  @Param({"100", "1000", "10000"})
+  public int eventsPerDay;
+
+  @Param({"2", "8"})
+  public int attendeesPerEvent;
+
+  @Param({"3", "30"})
+  public int requestSize;
+
+  @Param({"0", "10"})
+  public int optionalAttendees;
+
+  @Param({"1000"})
+  public int population;
+
+  private List<Event> events;
+  private EventIndex index;
+  private MeetingRequest[] requests;
+  private int nextRequest;
+
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+  private final PackedFindMeetingQuery packedFindMeetingQuery = new PackedFindMeetingQuery();
+  private final OptionalCoverageQuery optionalCoverageQuery = new OptionalCoverageQuery();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    SyntheticCalendar calendar = new SyntheticCalendar(/* seed= */ 42, population);
+    events = calendar.events(eventsPerDay, attendeesPerEvent);
+    index = new EventIndex(events);
+    requests = new MeetingRequest[REQUESTS];
+    for (int i = 0; i < REQUESTS; ++i) {
+      requests[i] = calendar.request(requestSize, optionalAttendees, DURATION_30_MINUTES);
+    }
+  }
+
+  private MeetingRequest nextRequest() {
+    return requests[nextRequest++ & (REQUESTS - 1)];
+  }
+
+  @Benchmark
+  public Collection<TimeRange> findMeetingQuery() {
+    return findMeetingQuery.query(events, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> packedFindMeetingQuery() {
+    return packedFindMeetingQuery.query(events, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> eventIndex() {
+    return index.query(nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> eventIndexBitmap() {
+    return index.queryBitmap(nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> optionalCoverage() {
+    return optionalCoverageQuery.query(index, nextRequest());
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates reproducible synthetic calendars. The shape of a calendar is controlled by the number
+ * of people in it, the number of events in the day, and the number of attendees of each event.
+ */
+public final class SyntheticCalendar {
+  // Typical meeting lengths, in minutes.
+  private static final int[] DURATIONS = {15, 30, 30, 30, 45, 60, 60, 90, 120};
+
+  private final Random random;
+  private final int population;
+
+  /**
+   * Creates a new generator.
+   *
+   * @param seed the seed for the underlying random number generator
+   * @param population the number of distinct people in the calendar. Must be positive.
+   */
+  public SyntheticCalendar(long seed, int population) {
+    if (population <= 0) {
+      throw new IllegalArgumentException("population must be positive");
+    }
+    this.random = new Random(seed);
+    this.population = population;
+  }
+
+  /** Returns the name of person {@code index}. */
+  public static String person(int index) {
+    return "Person " + index;
+  }
+
+  /**
+   * Returns {@code count} events spread over the whole day, each with {@code attendeesPerEvent}
+   * distinct attendees (or the whole population, if that is smaller).
+   */
+  public List<Event> events(int count, int attendeesPerEvent) {
+    List<Event> events = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) {
+      int duration = DURATIONS[random.nextInt(DURATIONS.length)];
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration() - duration + 1);
+      events.add(
+          new Event(
+              "Event " + i,
+              TimeRange.fromStartDuration(start, duration),
+              people(attendeesPerEvent, new HashSet<>())));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for {@code attendees} mandatory and {@code optionalAttendees} optional
+   * people, all distinct.
+   */
+  public MeetingRequest request(int attendees, int optionalAttendees, long duration) {
+    Set<String> chosen = new HashSet<>();
+    MeetingRequest request = new MeetingRequest(people(attendees, chosen), duration);
+    for (String attendee : people(optionalAttendees, chosen)) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  /** Picks up to {@code count} random people that are not in {@code chosen} yet. */
+  private Set<String> people(int count, Set<String> chosen) {
+    Set<String> people = new HashSet<>();
+    count = Integer.min(count, population - chosen.size());
+    while (people.size() < count) {
+      String person = person(random.nextInt(population));
+      if (chosen.add(person)) {
+        people.add(person);
+      }
+    }
+    return people;
+  }
+}
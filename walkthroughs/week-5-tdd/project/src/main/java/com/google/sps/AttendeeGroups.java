@@ -0,0 +1,267 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.sps.QueryMetrics.Metric;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Named groups of attendees, such as mailing lists, that requests can use in place of the people in
+ * them. A group's members can include other groups; nested groups are flattened once, when the
+ * definitions are read, and cycles are rejected.
+ *
+ * <p>{@link #query} answers a request naming groups the same way {@link EventIndex#query} answers
+ * the request with every group replaced by its members. The busy times of each group are merged
+ * into one conflict set the first time they are needed and reused afterwards. A cached set stays
+ * valid across calendar snapshots as long as each member's busy list is the same array, which
+ * {@link EventIndex#withChanges} guarantees for everyone whose events did not change. Checking that
+ * is a lookup per member instead of a merge of all their busy times.
+ *
+ * <p>Instances are thread-safe. Group definitions never change; a new set of definitions is a new
+ * instance.
+ */
+public final class AttendeeGroups {
+  /** No groups at all. */
+  public static final AttendeeGroups NONE = new AttendeeGroups(Collections.emptyMap());
+
+  // The definitions as given, for reporting them back.
+  private final Map<String, List<String>> definitions = new LinkedHashMap<>();
+  // The sorted, flattened individual members of each group.
+  private final Map<String, String[]> membersByGroup = new HashMap<>();
+  // The groups each individual belongs to, directly or through nested groups.
+  private final Map<String, Set<String>> groupsByMember = new HashMap<>();
+  // The merged busy times of each group, from the last snapshot they were built for.
+  private final ConcurrentMap<String, Union> unionByGroup = new ConcurrentHashMap<>();
+
+  /**
+   * Reads a set of group definitions.
+   *
+   * @param definitions the members of each group, which may name people or other groups. Must be
+   *     non-null, and no group may contain itself, directly or through nested groups.
+   */
+  public AttendeeGroups(Map<String, ? extends Collection<String>> definitions) {
+    if (definitions == null) {
+      throw new IllegalArgumentException("definitions cannot be null. Use empty map instead.");
+    }
+    for (Map.Entry<String, ? extends Collection<String>> entry : definitions.entrySet()) {
+      if (entry.getKey() == null || entry.getValue() == null) {
+        throw new IllegalArgumentException("groups and their members cannot be null");
+      }
+      this.definitions.put(
+          entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+    }
+
+    Map<String, Set<String>> flattened = new HashMap<>();
+    for (String group : this.definitions.keySet()) {
+      flatten(group, flattened, new HashSet<>());
+    }
+    for (Map.Entry<String, Set<String>> entry : flattened.entrySet()) {
+      membersByGroup.put(entry.getKey(), entry.getValue().toArray(new String[0]));
+      for (String member : entry.getValue()) {
+        groupsByMember.computeIfAbsent(member, key -> new HashSet<>()).add(entry.getKey());
+      }
+    }
+  }
+
+  /** Returns the individual members of {@code group}, flattening the groups it contains. */
+  private Set<String> flatten(
+      String group, Map<String, Set<String>> flattened, Set<String> inProgress) {
+    Set<String> members = flattened.get(group);
+    if (members != null) {
+      return members;
+    }
+    if (!inProgress.add(group)) {
+      throw new IllegalArgumentException("group " + group + " contains itself");
+    }
+    members = new TreeSet<>();
+    for (String member : definitions.get(group)) {
+      if (member == null) {
+        throw new IllegalArgumentException("groups and their members cannot be null");
+      }
+      if (definitions.containsKey(member)) {
+        members.addAll(flatten(member, flattened, inProgress));
+      } else {
+        members.add(member);
+      }
+    }
+    inProgress.remove(group);
+    flattened.put(group, members);
+    return members;
+  }
+
+  /** Returns a read-only view of the definitions, as they were given. */
+  public Map<String, List<String>> getDefinitions() {
+    return Collections.unmodifiableMap(definitions);
+  }
+
+  /** Returns whether {@code name} is a group. */
+  public boolean isGroup(String name) {
+    return membersByGroup.containsKey(name);
+  }
+
+  /** Returns the individual members of a group, or an empty list if {@code name} is no group. */
+  public List<String> members(String name) {
+    String[] members = membersByGroup.get(name);
+    return members == null
+        ? Collections.<String>emptyList()
+        : Collections.unmodifiableList(Arrays.asList(members));
+  }
+
+  /** Returns the individuals named by {@code names}, with every group replaced by its members. */
+  public Set<String> expand(Collection<String> names) {
+    Set<String> individuals = new HashSet<>();
+    for (String name : names) {
+      String[] members = membersByGroup.get(name);
+      if (members == null) {
+        individuals.add(name);
+      } else {
+        individuals.addAll(Arrays.asList(members));
+      }
+    }
+    return individuals;
+  }
+
+  /**
+   * Returns a copy of {@code request} whose mandatory and optional attendees have every group
+   * replaced by its members, for queries that only understand individuals.
+   */
+  public MeetingRequest expand(MeetingRequest request) {
+    MeetingRequest expanded =
+        new MeetingRequest(expand(request.getAttendees()), request.getDuration());
+    for (String attendee : expand(request.getOptionalAttendees())) {
+      expanded.addOptionalAttendee(attendee);
+    }
+    return expanded;
+  }
+
+  /** Returns the groups that any of {@code attendees} belongs to. */
+  public Set<String> groupsContaining(Collection<String> attendees) {
+    Set<String> groups = new HashSet<>();
+    for (String attendee : attendees) {
+      groups.addAll(groupsByMember.getOrDefault(attendee, Collections.<String>emptySet()));
+    }
+    return groups;
+  }
+
+  /**
+   * Finds all time intervals where a meeting request's attendees can meet, where attendees can be
+   * groups. The answer is that of {@link EventIndex#query} for the request with its groups
+   * expanded.
+   *
+   * @param index the snapshot of the calendar to query
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request) {
+    long phaseStart = QueryMetrics.start();
+    long[] conflicts = busy(index, request.getAttendees());
+    long[] optionalConflicts = busy(index, request.getOptionalAttendees());
+    QueryMetrics.stop(Metric.MERGE_BUSY_LISTS_NANOS, phaseStart);
+    long[] chosen =
+        EventIndex.conflicts(
+            conflicts,
+            optionalConflicts,
+            expand(request.getAttendees()).isEmpty(),
+            request.getDuration());
+    phaseStart = QueryMetrics.start();
+    List<TimeRange> validTimes =
+        PackedIntervals.validTimes(chosen, chosen.length, request.getDuration());
+    QueryMetrics.stop(Metric.GET_VALID_TIMES_NANOS, phaseStart);
+    return validTimes;
+  }
+
+  /** Returns the flattened busy times of a mix of individuals and groups. */
+  private long[] busy(EventIndex index, Collection<String> names) {
+    List<String> individuals = new ArrayList<>();
+    long[][] lists = new long[names.size() + 1][];
+    int listCount = 0;
+    for (String name : names) {
+      if (membersByGroup.containsKey(name)) {
+        long[] union = union(index, name);
+        if (union.length > 0) {
+          lists[listCount++] = union;
+        }
+      } else {
+        individuals.add(name);
+      }
+    }
+    long[] individualBusy = index.busy(individuals);
+    if (individualBusy.length > 0) {
+      lists[listCount++] = individualBusy;
+    }
+    return PackedIntervals.unionAll(lists, listCount);
+  }
+
+  /**
+   * Returns the merged busy times of a group in {@code index}, reusing the cached merge if no
+   * member's busy list has changed since it was built. The returned array must not be modified.
+   */
+  long[] union(EventIndex index, String group) {
+    String[] members = membersByGroup.get(group);
+    Union union = unionByGroup.get(group);
+    if (union != null && union.isCurrent(index, members)) {
+      return union.busy;
+    }
+
+    long[][] memberLists = new long[members.length][];
+    long[][] lists = new long[members.length][];
+    int listCount = 0;
+    for (int i = 0; i < members.length; ++i) {
+      memberLists[i] = index.busyOf(members[i]);
+      if (memberLists[i] != null) {
+        lists[listCount++] = memberLists[i];
+      }
+    }
+    union = new Union(memberLists, PackedIntervals.unionAll(lists, listCount));
+    // A concurrent rebuild for another snapshot may replace this one; either is correct for its
+    // own snapshot.
+    unionByGroup.put(group, union);
+    return union.busy;
+  }
+
+  /** A group's merged busy times and the member lists they were merged from. */
+  private static final class Union {
+    private final long[][] memberLists;
+    private final long[] busy;
+
+    Union(long[][] memberLists, long[] busy) {
+      this.memberLists = memberLists;
+      this.busy = busy;
+    }
+
+    /** Returns whether every member still has the same busy list in {@code index}. */
+    boolean isCurrent(EventIndex index, String[] members) {
+      for (int i = 0; i < members.length; ++i) {
+        if (index.busyOf(members[i]) != memberLists[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A dictionary from attendee names to dense integer IDs, so that the attendees of events can be
+ * compared as integers instead of strings. Names are interned the first time a query looks at an
+ * event, never when the event is built, and names that only appear in requests are never interned.
+ *
+ * <p>IDs are handed out from 0 upwards and are only meaningful within one dictionary. Once the
+ * {@link #current} dictionary has interned {@link #CAPACITY} names, a fresh one replaces it; events
+ * re-intern their attendees into the new dictionary when next queried, and the old dictionary is
+ * collected once no query or event uses it any more. This bounds the memory held for names that
+ * have long since left the calendar.
+ *
+ * <p>Each dictionary has a generation, which increases with every replacement, so that an event
+ * keeps the set of the newest dictionary it has seen even while older queries are still running.
+ */
+final class AttendeeIds {
+  /** The ID of a name that has never been interned. */
+  static final int UNKNOWN = -1;
+
+  /** The number of names after which {@link #current} starts a new dictionary. */
+  static final int CAPACITY = 1 << 18;
+
+  private static final AtomicLong generations = new AtomicLong();
+  private static final AtomicReference<AttendeeIds> current =
+      new AtomicReference<>(new AttendeeIds(CAPACITY));
+
+  private final long generation = generations.incrementAndGet();
+  private final int capacity;
+  private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+  private final AtomicInteger nextId = new AtomicInteger();
+  // The number of names whose IDs lookup can see. It is only increased after the ID is in the map,
+  // so a lookup that starts after reading a count sees at least that many names.
+  private final AtomicInteger size = new AtomicInteger();
+
+  /**
+   * Creates an empty dictionary.
+   *
+   * @param capacity the number of names after which the dictionary counts as full
+   */
+  AttendeeIds(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * Returns the dictionary that queries should use, replacing it first if it is full. A query
+   * should call this once and use the result throughout, since IDs from different dictionaries
+   * cannot be compared.
+   */
+  static AttendeeIds current() {
+    AttendeeIds dictionary = current.get();
+    if (dictionary.isFull()) {
+      current.compareAndSet(dictionary, new AttendeeIds(dictionary.capacity));
+      dictionary = current.get();
+    }
+    return dictionary;
+  }
+
+  /**
+   * Returns the ID of {@code name}, assigning a new one if it has none yet. A full dictionary still
+   * assigns IDs, so that queries already using it can finish.
+   */
+  int intern(String name) {
+    Integer id = ids.get(name);
+    if (id != null) {
+      return id;
+    }
+    boolean[] assigned = new boolean[1];
+    id =
+        ids.computeIfAbsent(
+            name,
+            key -> {
+              assigned[0] = true;
+              return nextId.getAndIncrement();
+            });
+    if (assigned[0]) {
+      size.incrementAndGet();
+    }
+    return id;
+  }
+
+  /** Returns the ID of {@code name}, or {@link #UNKNOWN} if it has never been interned. */
+  int lookup(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : UNKNOWN;
+  }
+
+  /** Returns the number of names interned so far. */
+  int size() {
+    return size.get();
+  }
+
+  /** Returns whether this dictionary replaced {@code other}, directly or not. */
+  boolean isNewerThan(AttendeeIds other) {
+    return generation > other.generation;
+  }
+
+  /** Returns whether the dictionary has interned as many names as its capacity. */
+  boolean isFull() {
+    return size() >= capacity;
+  }
+}
@@ -0,0 +1,168 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * An immutable set of attendees, stored as their sorted IDs in one {@link AttendeeIds} dictionary.
+ * IDs below 64 are also kept in a bitmask, so when both sets only hold such IDs, testing for an
+ * intersection is a single AND. Otherwise it is a merge of the two sorted arrays. Only sets from
+ * the same dictionary can be compared.
+ */
+final class AttendeeSet {
+  /** The set without any attendees, which belongs to every dictionary. */
+  static final AttendeeSet EMPTY = new AttendeeSet(null, new int[0]);
+
+  // The dictionary the IDs come from, or null for the empty set.
+  private final AttendeeIds dictionary;
+  // Sorted, distinct attendee IDs.
+  private final int[] ids;
+  // Bit i is set if ID i < 64 is in the set.
+  private final long mask;
+  // Whether every ID is below 64, so that the mask alone describes the set.
+  private final boolean maskOnly;
+
+  private AttendeeSet(AttendeeIds dictionary, int[] ids) {
+    this.dictionary = dictionary;
+    this.ids = ids;
+    long mask = 0;
+    for (int id : ids) {
+      if (id < 64) {
+        mask |= 1L << id;
+      }
+    }
+    this.mask = mask;
+    this.maskOnly = ids.length == 0 || ids[ids.length - 1] < 64;
+  }
+
+  /** Returns the set of {@code names}, interning any name that has no ID in {@code dictionary}. */
+  static AttendeeSet intern(Collection<String> names, AttendeeIds dictionary) {
+    int[] ids = new int[names.size()];
+    int size = 0;
+    for (String name : names) {
+      ids[size++] = dictionary.intern(name);
+    }
+    return of(dictionary, ids, size);
+  }
+
+  /**
+   * Returns the set of {@code names} that have an ID in {@code dictionary}. Names without one are
+   * left out, so the result is only complete once the events it is compared with have been interned
+   * into the same dictionary.
+   */
+  static AttendeeSet lookup(Collection<String> names, AttendeeIds dictionary) {
+    int[] ids = new int[names.size()];
+    int size = 0;
+    for (String name : names) {
+      int id = dictionary.lookup(name);
+      if (id != AttendeeIds.UNKNOWN) {
+        ids[size++] = id;
+      }
+    }
+    return of(dictionary, ids, size);
+  }
+
+  private static AttendeeSet of(AttendeeIds dictionary, int[] ids, int size) {
+    if (size == 0) {
+      return EMPTY;
+    }
+    Arrays.sort(ids, 0, size);
+    int distinct = 1;
+    for (int i = 1; i < size; ++i) {
+      if (ids[i] != ids[distinct - 1]) {
+        ids[distinct++] = ids[i];
+      }
+    }
+    return new AttendeeSet(dictionary, distinct == ids.length ? ids : Arrays.copyOf(ids, distinct));
+  }
+
+  /** Returns whether the IDs of this set can be compared with those from {@code dictionary}. */
+  boolean belongsTo(AttendeeIds dictionary) {
+    return this.dictionary == null || this.dictionary == dictionary;
+  }
+
+  /**
+   * Returns whether an event that has cached {@code cached} should cache this set in its place. A
+   * set from a newer dictionary is never replaced by one from an older dictionary, so queries that
+   * overlap a change of dictionary do not keep evicting each other's sets.
+   */
+  boolean replaces(AttendeeSet cached) {
+    return cached == null
+        || cached.dictionary == null
+        || (dictionary != null && dictionary.isNewerThan(cached.dictionary));
+  }
+
+  /**
+   * The set of a request's names in one dictionary, which is looked up again whenever names have
+   * been interned since. A query that interns the events it visits as it goes can therefore compare
+   * each event with a set that is complete for that event, without interning every event before it
+   * starts. Instances are not thread-safe.
+   */
+  static final class Lookup {
+    private final Collection<String> names;
+    private final AttendeeIds dictionary;
+    // The dictionary size that set was looked up at, or -1 before the first lookup.
+    private int size = -1;
+    private AttendeeSet set = EMPTY;
+
+    Lookup(Collection<String> names, AttendeeIds dictionary) {
+      this.names = names;
+      this.dictionary = dictionary;
+    }
+
+    /** Returns the set, which holds every name that was interned before the call. */
+    AttendeeSet get() {
+      if (names.isEmpty()) {
+        return EMPTY;
+      }
+      int currentSize = dictionary.size();
+      if (currentSize != size) {
+        size = currentSize;
+        set = lookup(names, dictionary);
+      }
+      return set;
+    }
+  }
+
+  /** Returns whether this set and {@code other} have any attendee in common. */
+  boolean intersects(AttendeeSet other) {
+    if (dictionary != other.dictionary && dictionary != null && other.dictionary != null) {
+      throw new IllegalArgumentException("attendee sets come from different dictionaries");
+    }
+    if ((mask & other.mask) != 0) {
+      return true;
+    }
+    if (maskOnly || other.maskOnly) {
+      // Every ID of one of the sets is in its mask, and none of them matched.
+      return false;
+    }
+
+    int[] a = ids;
+    int[] b = other.ids;
+    int indexA = 0, indexB = 0;
+    while (indexA < a.length && indexB < b.length) {
+      if (a[indexA] < b[indexB]) {
+        ++indexA;
+      } else if (a[indexA] > b[indexB]) {
+        ++indexB;
+      } else {
+        return true;
+      }
+    }
+    return false;
+  }
+}
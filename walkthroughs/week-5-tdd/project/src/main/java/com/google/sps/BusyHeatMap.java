@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * The number of people in a group who are busy at each minute of the day. It is computed with a
+ * difference array: each busy interval adds one at its start and subtracts one at its end, and a
+ * running sum over the day yields the counts. Runtime O(B + 1440) for B busy intervals.
+ *
+ * <p>Each person's busy intervals are flattened first, so a person in two overlapping events is
+ * only counted once, and a person named twice in the group is only counted once too. Instances are
+ * immutable.
+ */
+public final class BusyHeatMap {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  // The number of busy people at each minute of the day.
+  private final int[] busy = new int[MINUTES];
+
+  /**
+   * Computes the heat map of a group of attendees.
+   *
+   * @param index the index of all scheduled events
+   * @param attendees the people to count. Duplicates are ignored.
+   */
+  public BusyHeatMap(EventIndex index, Collection<String> attendees) {
+    int[] deltas = new int[MINUTES + 1];
+    for (String attendee : new LinkedHashSet<>(attendees)) {
+      for (long interval : index.busy(Collections.singleton(attendee))) {
+        int start = Integer.max(0, PackedIntervals.start(interval));
+        int end = Integer.min(MINUTES, PackedIntervals.end(interval));
+        if (start < end) {
+          ++deltas[start];
+          --deltas[end];
+        }
+      }
+    }
+
+    int running = 0;
+    for (int minute = 0; minute < MINUTES; ++minute) {
+      running += deltas[minute];
+      busy[minute] = running;
+    }
+  }
+
+  /** Returns the number of busy people at {@code minute}. */
+  public int busyAt(int minute) {
+    return busy[minute];
+  }
+
+  /**
+   * Returns the counts as runs of equal values, after grouping the day into buckets. A bucket's
+   * count is the largest count of any of its minutes, so a bucket is only shown as free if it is
+   * free throughout.
+   *
+   * @param bucketMinutes the length of a bucket in minutes. Must be between 1 and 1440.
+   * @return the runs, ordered by start time and covering the whole day
+   */
+  public List<Run> runs(int bucketMinutes) {
+    if (bucketMinutes < 1 || bucketMinutes > MINUTES) {
+      throw new IllegalArgumentException("bucketMinutes must be between 1 and " + MINUTES);
+    }
+
+    List<Run> runs = new ArrayList<>();
+    int runStart = 0;
+    int runBusy = -1;
+    for (int bucketStart = 0; bucketStart < MINUTES; bucketStart += bucketMinutes) {
+      int bucketEnd = Integer.min(bucketStart + bucketMinutes, MINUTES);
+      int bucketBusy = 0;
+      for (int minute = bucketStart; minute < bucketEnd; ++minute) {
+        bucketBusy = Integer.max(bucketBusy, busy[minute]);
+      }
+      if (bucketBusy != runBusy) {
+        if (runBusy >= 0) {
+          runs.add(new Run(runStart, bucketStart, runBusy));
+        }
+        runStart = bucketStart;
+        runBusy = bucketBusy;
+      }
+    }
+    runs.add(new Run(runStart, MINUTES, runBusy));
+    return runs;
+  }
+
+  /** A stretch of the day during which the same number of people are busy. */
+  public static final class Run {
+    private final int start;
+    private final int end;
+    private final int busy;
+
+    Run(int start, int end, int busy) {
+      this.start = start;
+      this.end = end;
+      this.busy = busy;
+    }
+
+    /** Returns the first minute of the run. */
+    public int getStart() {
+      return start;
+    }
+
+    /** Returns the exclusive end of the run. */
+    public int getEnd() {
+      return end;
+    }
+
+    /** Returns the number of busy people during the run. */
+    public int getBusy() {
+      return busy;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Run)) {
+        return false;
+      }
+      Run run = (Run) other;
+      return start == run.start && end == run.end && busy == run.busy;
+    }
+
+    @Override
+    public int hashCode() {
+      return (start * 31 + end) * 31 + busy;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Run: [%d, %d) busy %d", start, end, busy);
+    }
+  }
+}
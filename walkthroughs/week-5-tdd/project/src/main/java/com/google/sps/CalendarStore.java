@@ -0,0 +1,168 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A calendar that can change while it is being queried. The current state is an immutable {@link
+ * EventIndex} snapshot held in a single atomic reference, so readers never lock and always see
+ * either all of a change or none of it.
+ *
+ * <p>Writers queue their changes and then take turns publishing. The writer that gets the next turn
+ * applies every change queued so far with one call to {@link EventIndex#withChanges} and publishes
+ * the result, so a burst of concurrent writes costs one snapshot instead of one per write. Each
+ * write returns once a snapshot containing it has been published.
+ *
+ * <p>Instances are thread-safe.
+ */
+public final class CalendarStore {
+  /** Told about every published snapshot, in publication order. */
+  public interface Listener {
+    /**
+     * Called after {@code snapshot} has been published.
+     *
+     * @param snapshot the snapshot that is now current
+     * @param changedAttendees the attendees of the events added or removed since the previous one
+     */
+    void published(EventIndex snapshot, Set<String> changedAttendees);
+  }
+
+  private final AtomicReference<EventIndex> snapshot;
+  private final Queue<Change> pending = new ConcurrentLinkedQueue<>();
+  // Held by the writer whose turn it is to publish. Readers never take it.
+  private final Object publishLock = new Object();
+  private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+  private final AtomicLong publications = new AtomicLong();
+
+  /**
+   * Creates a store.
+   *
+   * @param initial the first snapshot. Must be non-null.
+   */
+  public CalendarStore(EventIndex initial) {
+    if (initial == null) {
+      throw new IllegalArgumentException("initial cannot be null");
+    }
+    this.snapshot = new AtomicReference<>(initial);
+  }
+
+  /** Returns the current snapshot. */
+  public EventIndex snapshot() {
+    return snapshot.get();
+  }
+
+  /** Registers a listener for every snapshot published from now on. */
+  public void addListener(Listener listener) {
+    listeners.add(listener);
+  }
+
+  /** Adds events. See {@link #apply}. */
+  public EventIndex add(Collection<Event> events) {
+    return apply(events, new ArrayList<Event>());
+  }
+
+  /** Removes events. See {@link #apply}. */
+  public EventIndex remove(Collection<Event> events) {
+    return apply(new ArrayList<Event>(), events);
+  }
+
+  /**
+   * Applies a change and waits until it is published. Changes from concurrent writers are applied
+   * in the order they were queued, and may be published together.
+   *
+   * @param added the events to add. Must be non-null.
+   * @param removed the events to remove, as in {@link EventIndex#withChanges}. Must be non-null.
+   * @return the first snapshot that contains the change
+   */
+  public EventIndex apply(Collection<Event> added, Collection<Event> removed) {
+    if (added == null || removed == null) {
+      throw new IllegalArgumentException("changes cannot be null. Use empty collection instead.");
+    }
+
+    Change change = new Change(new ArrayList<>(added), new ArrayList<>(removed));
+    pending.add(change);
+    synchronized (publishLock) {
+      // An earlier writer may already have published this change along with its own.
+      if (change.published == null) {
+        publishPending();
+      }
+    }
+    return change.published;
+  }
+
+  /** Returns the number of snapshots published since the store was created. */
+  public long publications() {
+    return publications.get();
+  }
+
+  /** Applies every queued change as one snapshot. Must hold the publish lock. */
+  private void publishPending() {
+    List<Change> batch = new ArrayList<>();
+    List<Event> added = new ArrayList<>();
+    List<Event> removed = new ArrayList<>();
+    Change change;
+    while ((change = pending.poll()) != null) {
+      batch.add(change);
+      for (Event event : change.removed) {
+        // Removing an event added earlier in the batch cancels the addition.
+        if (!added.remove(event)) {
+          removed.add(event);
+        }
+      }
+      added.addAll(change.added);
+    }
+
+    Set<String> changedAttendees = new HashSet<>();
+    for (Event event : added) {
+      changedAttendees.addAll(event.getAttendees());
+    }
+    for (Event event : removed) {
+      changedAttendees.addAll(event.getAttendees());
+    }
+
+    EventIndex next = snapshot.get().withChanges(added, removed);
+    snapshot.set(next);
+    publications.incrementAndGet();
+    for (Change published : batch) {
+      published.published = next;
+    }
+    for (Listener listener : listeners) {
+      listener.published(next, changedAttendees);
+    }
+  }
+
+  /** One writer's change, and the snapshot that first contains it. */
+  private static final class Change {
+    private final List<Event> added;
+    private final List<Event> removed;
+    // Written and read under the publish lock.
+    private EventIndex published;
+
+    Change(List<Event> added, List<Event> removed) {
+      this.added = added;
+      this.removed = removed;
+    }
+  }
+}
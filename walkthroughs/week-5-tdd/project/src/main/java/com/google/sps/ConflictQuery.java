@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the existing events that a proposed event would collide with, for each of its attendees.
+ * Where a linear scan checks {@link TimeRange#overlaps} against every event, this query keeps an
+ * interval tree for each attendee and finds the collisions in O(A log n + k), where A = the number
+ * of attendees asked about, n = the number of events of each of them, and k = the number of
+ * collisions.
+ *
+ * <p>Instances are built once from a collection of events and are read-only afterwards, so they can
+ * be shared between threads.
+ */
+public final class ConflictQuery {
+  private final Map<String, EventIntervalTree> treeByAttendee = new HashMap<>();
+
+  /**
+   * Builds the per-attendee trees over a collection of events. Runtime O(E log E).
+   *
+   * @param events the collection of all scheduled events. Must be non-null.
+   */
+  public ConflictQuery(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    Map<String, List<Event>> eventsByAttendee = new HashMap<>();
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        eventsByAttendee.computeIfAbsent(attendee, key -> new ArrayList<>()).add(event);
+      }
+    }
+    for (Map.Entry<String, List<Event>> entry : eventsByAttendee.entrySet()) {
+      treeByAttendee.put(entry.getKey(), new EventIntervalTree(entry.getValue()));
+    }
+  }
+
+  /**
+   * Finds the events that overlap a time range for each of a group of attendees.
+   *
+   * @param when the time range to check
+   * @param attendees the attendees to check
+   * @return for each attendee with at least one overlapping event, in the order the attendees were
+   *     given, a read-only list of those events ordered by start time. Attendees without conflicts
+   *     are left out.
+   */
+  public Map<String, List<Event>> query(TimeRange when, Collection<String> attendees) {
+    Map<String, List<Event>> conflicts = new LinkedHashMap<>();
+    for (String attendee : attendees) {
+      EventIntervalTree tree = treeByAttendee.get(attendee);
+      if (tree == null || conflicts.containsKey(attendee)) {
+        continue;
+      }
+      List<Event> overlapping = new ArrayList<>();
+      if (tree.overlapping(when, overlapping) > 0) {
+        conflicts.put(attendee, Collections.unmodifiableList(overlapping));
+      }
+    }
+    return conflicts;
+  }
+
+  /** Finds the events that a proposed event collides with for each of its attendees. */
+  public Map<String, List<Event>> query(Event event) {
+    return query(event.getWhen(), event.getAttendees());
+  }
+}
@@ -0,0 +1,96 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * A span of time across any number of days, measured in minutes since the Unix epoch (UTC). Where
+ * {@link TimeRange} describes minutes within a single day, this class places a range on the
+ * calendar as a whole.
+ */
+public final class EpochTimeRange {
+  /** The number of minutes in a day. */
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  private final long start;
+  private final long duration;
+
+  private EpochTimeRange(long start, long duration) {
+    if (duration < 0) {
+      throw new IllegalArgumentException("end cannot be before start");
+    }
+    this.start = start;
+    this.duration = duration;
+  }
+
+  /** Returns the start of the range in epoch minutes. */
+  public long start() {
+    return start;
+  }
+
+  /** Returns the number of minutes between the start and end. */
+  public long duration() {
+    return duration;
+  }
+
+  /** Returns the end of the range. This ending value is the closing exclusive bound. */
+  public long end() {
+    return start + duration;
+  }
+
+  /** Returns the day that contains {@code epochMinute}, counted in days since the epoch. */
+  public static long dayOf(long epochMinute) {
+    return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+  }
+
+  /** Returns the epoch minute at which {@code day} starts. */
+  public static long startOfDay(long day) {
+    return day * MINUTES_PER_DAY;
+  }
+
+  /** Places a range within {@code day} on the calendar. */
+  public static EpochTimeRange onDay(long day, TimeRange range) {
+    return new EpochTimeRange(startOfDay(day) + range.start(), range.duration());
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(start) * 31 + Long.hashCode(duration);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EpochTimeRange
+        && start == ((EpochTimeRange) other).start
+        && duration == ((EpochTimeRange) other).duration;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("EpochRange: [%d, %d)", start, start + duration);
+  }
+
+  /** Creates an {@code EpochTimeRange} from {@code start} to the exclusive {@code end}. */
+  public static EpochTimeRange fromStartEnd(long start, long end) {
+    return new EpochTimeRange(start, end - start);
+  }
+
+  /**
+   * Create an {@code EpochTimeRange} starting at {@code start} with a duration equal to {@code
+   * duration}.
+   */
+  public static EpochTimeRange fromStartDuration(long start, long duration) {
+    return new EpochTimeRange(start, duration);
+  }
+}
@@ -28,6 +28,11 @@ public final class Event {
   private final TimeRange when;
   private final Set<String> attendees = new HashSet<>();
 
+  // Derived from attendees on first use. Transient so that the JSON form of an event is unchanged,
+  // and lazy because Gson does not call the constructor.
+  private transient Set<String> readOnlyAttendees;
+  private transient volatile AttendeeSet attendeeSet;
+
   /**
    * Creates a new event.
    *
@@ -66,8 +71,29 @@ public final class Event {
   /** Returns a read-only set of required attendees for this event. */
   public Set<String> getAttendees() {
     // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // internal data. The view is shared between callers rather than allocated on every call.
+    Set<String> view = readOnlyAttendees;
+    if (view == null) {
+      view = Collections.unmodifiableSet(attendees);
+      readOnlyAttendees = view;
+    }
+    return view;
+  }
+
+  /**
+   * Returns the attendees of this event as IDs in {@code dictionary}, interning them on first use.
+   * The set for the newest dictionary asked for is kept.
+   */
+  AttendeeSet getAttendeeSet(AttendeeIds dictionary) {
+    AttendeeSet cached = attendeeSet;
+    if (cached != null && cached.belongsTo(dictionary)) {
+      return cached;
+    }
+    AttendeeSet set = AttendeeSet.intern(attendees, dictionary);
+    if (set.replaces(cached)) {
+      attendeeSet = set;
+    }
+    return set;
   }
 
   @Override
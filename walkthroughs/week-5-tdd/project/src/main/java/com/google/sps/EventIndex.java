@@ -0,0 +1,633 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.sps.QueryMetrics.Metric;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An index from each attendee to the sorted, pre-merged list of times that attendee is busy. The
+ * index is built once from a collection of events and is read-only afterwards, so it can be shared
+ * between threads.
+ *
+ * <p>{@link #withChanges} derives a new index from an existing one, so that an updated calendar can
+ * be published as a new snapshot while readers keep using the old one. The two share everything
+ * that the change does not touch, so deriving costs time in the size of the change and the number
+ * of attendees, not in the number of events.
+ *
+ * <p>{@link #query} answers the same question as {@link FindMeetingQuery#query}, with identical
+ * results, but only looks at the busy lists of the people named in the request. Its runtime is O(B
+ * log A), where A = the number of requested attendees and B = the number of busy intervals those
+ * attendees have, instead of O(E) over every event.
+ */
+public final class EventIndex {
+  private static final long[] NO_CONFLICTS = new long[0];
+
+  // The events this index was built from.
+  private final EventList events;
+  // The events of each attendee, and the events without attendees, used to derive new indexes.
+  // Built on the first call to withChanges unless this index was derived itself.
+  private volatile EventsByAttendee eventsByAttendee;
+  // The working hours this index was built with.
+  private final Map<String, WorkingHours> workingHours;
+  // Flattened busy intervals for each attendee, packed as described in PackedIntervals.
+  private final Map<String, long[]> busyByAttendee = new HashMap<>();
+  // The same busy times, as one bit per minute of the day.
+  private final Map<String, MinuteBitmap> bitmapByAttendee = new HashMap<>();
+
+  /**
+   * Builds an index over a collection of events. Runtime O(E log E).
+   *
+   * @param events the collection of all scheduled events. Must be non-null.
+   */
+  public EventIndex(Collection<Event> events) {
+    this(events, Collections.<String, WorkingHours>emptyMap());
+  }
+
+  /**
+   * Builds an index over a collection of events, where some attendees can only meet during their
+   * working hours. The time outside of an attendee's working hours is merged into their busy times
+   * as if it were an event, so every query only offers times within the working hours of all
+   * requested attendees. Runtime O(E log E).
+   *
+   * @param events the collection of all scheduled events. Must be non-null.
+   * @param workingHours the working hours of each attendee that has them. Must be non-null.
+   */
+  public EventIndex(Collection<Event> events, Map<String, WorkingHours> workingHours) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null. Use empty collection instead.");
+    }
+
+    if (workingHours == null) {
+      throw new IllegalArgumentException("workingHours cannot be null. Use empty map instead.");
+    }
+    this.events = new EventList(Collections.unmodifiableList(new ArrayList<Event>(events)));
+    this.workingHours = Collections.unmodifiableMap(new HashMap<>(workingHours));
+    index(rawBusy(this.events.events(), this.workingHours));
+  }
+
+  /** Builds an index over the events of a log; see {@link #of(EventLog, Map)}. */
+  private EventIndex(EventLog log, Map<String, WorkingHours> workingHours) {
+    this.events = new EventList(log.events());
+    this.workingHours = Collections.unmodifiableMap(new HashMap<>(workingHours));
+    index(rawBusy(log, this.workingHours));
+  }
+
+  /**
+   * Builds an index over the events of a log. Equivalent to {@code of(log, emptyMap())}.
+   *
+   * @param log the event log. Must be non-null.
+   */
+  public static EventIndex of(EventLog log) {
+    return of(log, Collections.<String, WorkingHours>emptyMap());
+  }
+
+  /**
+   * Builds an index over the events of a log, reading the busy times straight from its records
+   * instead of creating an {@link Event} for each one. Each attendee's name is decoded once, and
+   * {@link #getEvents} is the log's own lazy view. Runtime O(A + E log E) for A attendees in all.
+   *
+   * @param log the event log. Must be non-null.
+   * @param workingHours the working hours of each attendee that has them, as in {@link
+   *     #EventIndex(Collection, Map)}. Must be non-null.
+   */
+  public static EventIndex of(EventLog log, Map<String, WorkingHours> workingHours) {
+    if (log == null) {
+      throw new IllegalArgumentException("log cannot be null");
+    }
+
+    if (workingHours == null) {
+      throw new IllegalArgumentException("workingHours cannot be null. Use empty map instead.");
+    }
+    return new EventIndex(log, workingHours);
+  }
+
+  /**
+   * Builds an index that shares the busy lists of {@code base} for every attendee except those in
+   * {@code changed}, whose lists are rebuilt from their events in {@code eventsByAttendee}.
+   */
+  private EventIndex(
+      EventIndex base, EventList events, EventsByAttendee eventsByAttendee, Set<String> changed) {
+    this.events = events;
+    this.eventsByAttendee = eventsByAttendee;
+    this.workingHours = base.workingHours;
+    busyByAttendee.putAll(base.busyByAttendee);
+    bitmapByAttendee.putAll(base.bitmapByAttendee);
+    busyByAttendee.keySet().removeAll(changed);
+    bitmapByAttendee.keySet().removeAll(changed);
+    index(rawBusy(eventsByAttendee, this.workingHours, changed));
+  }
+
+  /**
+   * Collects the unflattened busy intervals of each attendee, including the time outside of their
+   * working hours.
+   */
+  private static Map<String, IntervalList> rawBusy(
+      Collection<Event> events, Map<String, WorkingHours> workingHours) {
+    Map<String, IntervalList> rawBusy = new HashMap<>();
+    for (Event event : events) {
+      long interval = PackedIntervals.pack(event.getWhen());
+      for (String attendee : event.getAttendees()) {
+        rawBusy.computeIfAbsent(attendee, key -> new IntervalList()).add(interval);
+      }
+    }
+    addOffHours(rawBusy, workingHours, null);
+    return rawBusy;
+  }
+
+  /**
+   * Collects the unflattened busy intervals of some attendees from their own events, including the
+   * time outside of their working hours.
+   */
+  private static Map<String, IntervalList> rawBusy(
+      EventsByAttendee eventsByAttendee,
+      Map<String, WorkingHours> workingHours,
+      Set<String> attendees) {
+    Map<String, IntervalList> rawBusy = new HashMap<>();
+    for (String attendee : attendees) {
+      List<Event> events = eventsByAttendee.eventsOf(attendee);
+      if (events.isEmpty()) {
+        continue;
+      }
+      IntervalList busy = new IntervalList();
+      for (Event event : events) {
+        busy.add(PackedIntervals.pack(event.getWhen()));
+      }
+      rawBusy.put(attendee, busy);
+    }
+    addOffHours(rawBusy, workingHours, attendees);
+    return rawBusy;
+  }
+
+  /** Collects the unflattened busy intervals of every attendee of a log, by string ID. */
+  private static Map<String, IntervalList> rawBusy(
+      EventLog log, Map<String, WorkingHours> workingHours) {
+    IntervalList[] rawBusyById = new IntervalList[log.stringCount()];
+    for (int index = 0; index < log.size(); ++index) {
+      long interval = PackedIntervals.pack(log.start(index), log.end(index));
+      int attendeeCount = log.attendeeCount(index);
+      for (int i = 0; i < attendeeCount; ++i) {
+        int id = log.attendee(index, i);
+        if (rawBusyById[id] == null) {
+          rawBusyById[id] = new IntervalList();
+        }
+        rawBusyById[id].add(interval);
+      }
+    }
+    Map<String, IntervalList> rawBusy = new HashMap<>();
+    for (int id = 0; id < rawBusyById.length; ++id) {
+      if (rawBusyById[id] != null) {
+        rawBusy.merge(log.string(id), rawBusyById[id], IntervalList::addAll);
+      }
+    }
+    addOffHours(rawBusy, workingHours, null);
+    return rawBusy;
+  }
+
+  /**
+   * Adds the time outside of each attendee's working hours to their busy intervals.
+   *
+   * @param attendees the attendees to add it for, or null for all of them
+   */
+  private static void addOffHours(
+      Map<String, IntervalList> rawBusy,
+      Map<String, WorkingHours> workingHours,
+      Set<String> attendees) {
+    Collection<String> withHours = attendees != null ? attendees : workingHours.keySet();
+    for (String attendee : withHours) {
+      WorkingHours hours = workingHours.get(attendee);
+      if (hours == null) {
+        continue;
+      }
+      IntervalList busy = rawBusy.computeIfAbsent(attendee, key -> new IntervalList());
+      for (long interval : hours.offHours()) {
+        busy.add(interval);
+      }
+    }
+  }
+
+  /** Flattens the collected busy intervals and adds them to the index. */
+  private void index(Map<String, IntervalList> rawBusy) {
+    for (Map.Entry<String, IntervalList> entry : rawBusy.entrySet()) {
+      long[] busy = entry.getValue().flatten();
+      MinuteBitmap bitmap = new MinuteBitmap();
+      for (long interval : busy) {
+        bitmap.setBusy(PackedIntervals.start(interval), PackedIntervals.end(interval));
+      }
+      busyByAttendee.put(entry.getKey(), busy);
+      bitmapByAttendee.put(entry.getKey(), bitmap);
+    }
+  }
+
+  /**
+   * Returns a read-only list of the events this index was built from. For an index derived with
+   * {@link #withChanges}, the list may be put together on the first call, in O(E) time.
+   */
+  public List<Event> getEvents() {
+    return events.events();
+  }
+
+  /**
+   * Returns a new index over this index's events with some events removed and others added. This
+   * index is unchanged. Only the busy lists of the attendees of the added and removed events are
+   * rebuilt, from those attendees' own events; every other attendee's list is shared with this
+   * index, and the event list records the changes instead of being copied. Runtime O(A + D + C log
+   * C) amortized, where A = the number of attendees in the index, D = the number of changes and C =
+   * the number of events of the affected attendees. The first call on an index that was not itself
+   * derived also groups its events by attendee, in O(E) time.
+   *
+   * @param added the events to add. Must be non-null.
+   * @param removed the events to remove. Each removes one equal event, and events that are not in
+   *     the index are ignored. Removals are applied before additions. Must be non-null.
+   */
+  public EventIndex withChanges(Collection<Event> added, Collection<Event> removed) {
+    if (added == null || removed == null) {
+      throw new IllegalArgumentException("changes cannot be null. Use empty collection instead.");
+    }
+
+    EventsByAttendee.Builder builder = eventsByAttendee().toBuilder();
+    List<Event> removedEvents = new ArrayList<>(removed.size());
+    for (Event event : removed) {
+      if (builder.remove(event)) {
+        removedEvents.add(event);
+      }
+    }
+    List<Event> addedEvents = new ArrayList<>(added);
+    for (Event event : addedEvents) {
+      builder.add(event);
+    }
+    return new EventIndex(
+        this,
+        events.withChanges(addedEvents, removedEvents),
+        builder.build(),
+        builder.changedAttendees());
+  }
+
+  /** Returns the events grouped by attendee, grouping them first if this is not done yet. */
+  private EventsByAttendee eventsByAttendee() {
+    EventsByAttendee eventsByAttendee = this.eventsByAttendee;
+    if (eventsByAttendee == null) {
+      // A race builds it twice at worst, with equal results.
+      eventsByAttendee = EventsByAttendee.of(events.events());
+      this.eventsByAttendee = eventsByAttendee;
+    }
+    return eventsByAttendee;
+  }
+
+  /**
+   * Finds all time intervals where a meeting request's attendees can meet. See {@link
+   * FindMeetingQuery#query} for the handling of optional attendees.
+   *
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    long[] conflicts = conflicts(request);
+    long phaseStart = QueryMetrics.start();
+    List<TimeRange> validTimes =
+        PackedIntervals.validTimes(conflicts, conflicts.length, request.getDuration());
+    QueryMetrics.stop(Metric.GET_VALID_TIMES_NANOS, phaseStart);
+    return validTimes;
+  }
+
+  /**
+   * Returns the slots of {@link #query} one at a time, without building the whole answer. Busy
+   * times are merged only as far as the iterator has been advanced.
+   *
+   * @param request the meeting request
+   * @param window the part of the day the slots must fall in; use {@link TimeRange#WHOLE_DAY} for
+   *     no limit. Must be non-null.
+   * @param alignment the step, in minutes, that slot starts are a multiple of; use 1 for no
+   *     alignment. Must be positive.
+   * @return an iterator over the slots in time order. See {@link SlotIterator} for how slots are
+   *     cut to the window and alignment.
+   */
+  public Iterator<TimeRange> slots(MeetingRequest request, TimeRange window, int alignment) {
+    return new SlotIterator(
+        busyLists(request.getAttendees()),
+        busyLists(request.getOptionalAttendees()),
+        request,
+        window,
+        alignment);
+  }
+
+  /**
+   * Returns the same slots as {@link #slots} as a sequential stream. Short-circuiting operations
+   * such as {@code findFirst} or {@code limit} stop merging busy times once they are satisfied.
+   */
+  public Stream<TimeRange> slotStream(MeetingRequest request, TimeRange window, int alignment) {
+    return StreamSupport.stream(
+        Spliterators.spliteratorUnknownSize(
+            slots(request, window, alignment),
+            Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL),
+        false);
+  }
+
+  /**
+   * Returns the flattened conflict set whose gaps answer {@link #query}: the combined conflicts of
+   * mandatory and optional attendees if that leaves room for the meeting, otherwise those of the
+   * mandatory attendees alone. The returned array must not be modified.
+   */
+  long[] conflicts(MeetingRequest request) {
+    long phaseStart = QueryMetrics.start();
+    long[] conflicts = busy(request.getAttendees());
+    long[] optionalConflicts = busy(request.getOptionalAttendees());
+    QueryMetrics.stop(Metric.MERGE_BUSY_LISTS_NANOS, phaseStart);
+    return conflicts(
+        conflicts, optionalConflicts, request.getAttendees().isEmpty(), request.getDuration());
+  }
+
+  /**
+   * Chooses between the combined conflicts of mandatory and optional attendees and those of the
+   * mandatory attendees alone, by the same rule as {@link #query}.
+   *
+   * @param conflicts the flattened busy times of the mandatory attendees
+   * @param optionalConflicts the flattened busy times of the optional attendees
+   * @param noMandatoryAttendees whether the request has no mandatory attendees
+   * @param minDuration the duration of the meeting
+   */
+  static long[] conflicts(
+      long[] conflicts, long[] optionalConflicts, boolean noMandatoryAttendees, long minDuration) {
+    long phaseStart = QueryMetrics.start();
+    long[] chosen = choose(conflicts, optionalConflicts, noMandatoryAttendees, minDuration);
+    QueryMetrics.stop(Metric.COMBINE_CONFLICT_SETS_NANOS, phaseStart);
+    return chosen;
+  }
+
+  /** Does the work of {@link #conflicts(long[], long[], boolean, long)}. */
+  private static long[] choose(
+      long[] conflicts, long[] optionalConflicts, boolean noMandatoryAttendees, long minDuration) {
+    if (optionalConflicts.length == 0) {
+      return conflicts;
+    }
+
+    long[] combinedConflicts = new long[conflicts.length + optionalConflicts.length];
+    int combinedConflictCount =
+        PackedIntervals.union(
+            conflicts,
+            conflicts.length,
+            optionalConflicts,
+            optionalConflicts.length,
+            combinedConflicts);
+    // Same edge case as FindMeetingQuery: with optional attendees only, there is no fallback.
+    if (noMandatoryAttendees
+        || PackedIntervals.hasValidTime(combinedConflicts, combinedConflictCount, minDuration)) {
+      return Arrays.copyOf(combinedConflicts, combinedConflictCount);
+    }
+    return conflicts;
+  }
+
+  /**
+   * Answers the same question as {@link #query} by OR-ing the per-minute busy bitmaps of the
+   * requested attendees and scanning the result for free runs. The runtime is O(A) word operations
+   * for A attendees, independent of how many events they have, which makes this mode the better
+   * choice for large attendee lists.
+   *
+   * <p>Results match {@link #query} for meetings of at least one minute, with one exception: an
+   * event of zero duration does not split the free time around it. Shorter meetings are handed to
+   * {@link #query}.
+   *
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> queryBitmap(MeetingRequest request) {
+    if (request.getDuration() < 1) {
+      return query(request);
+    }
+
+    MinuteBitmap busy = bitmap(request.getAttendees());
+    MinuteBitmap combinedBusy = new MinuteBitmap(busy);
+    for (String attendee : request.getOptionalAttendees()) {
+      MinuteBitmap bitmap = bitmapByAttendee.get(attendee);
+      if (bitmap != null) {
+        combinedBusy.or(bitmap);
+      }
+    }
+
+    List<TimeRange> combinedValidTimes = combinedBusy.freeRuns(request.getDuration());
+    if (!combinedValidTimes.isEmpty()) {
+      return combinedValidTimes;
+    }
+    if (request.getAttendees().isEmpty()) {
+      return Arrays.asList();
+    }
+    return busy.freeRuns(request.getDuration());
+  }
+
+  /** Returns a new bitmap of the minutes where any of {@code attendees} is busy. */
+  MinuteBitmap bitmap(Collection<String> attendees) {
+    MinuteBitmap busy = new MinuteBitmap();
+    for (String attendee : attendees) {
+      MinuteBitmap bitmap = bitmapByAttendee.get(attendee);
+      if (bitmap != null) {
+        busy.or(bitmap);
+      }
+    }
+    return busy;
+  }
+
+  /**
+   * Returns the flattened union of the busy intervals of a group of attendees, found by a k-way
+   * merge of their pre-merged lists. The returned array must not be modified.
+   *
+   * @param attendees the attendees whose busy times are wanted
+   * @return the packed, flattened busy intervals, ordered by start time
+   */
+  long[] busy(Collection<String> attendees) {
+    long[][] lists = new long[attendees.size()][];
+    int listCount = 0;
+    for (String attendee : attendees) {
+      long[] list = busyByAttendee.get(attendee);
+      if (list != null) {
+        lists[listCount++] = list;
+      }
+    }
+    return listCount == 0 ? NO_CONFLICTS : PackedIntervals.unionAll(lists, listCount);
+  }
+
+  /**
+   * Returns the flattened busy intervals of one attendee, or null if they are never busy. An
+   * attendee whose events are unchanged keeps the very same array in the indexes derived with
+   * {@link #withChanges}. The returned array must not be modified.
+   */
+  long[] busyOf(String attendee) {
+    return busyByAttendee.get(attendee);
+  }
+
+  /** Returns the non-empty busy lists of a group of attendees. The lists must not be modified. */
+  private long[][] busyLists(Collection<String> attendees) {
+    long[][] lists = new long[attendees.size()][];
+    int listCount = 0;
+    for (String attendee : attendees) {
+      long[] list = busyByAttendee.get(attendee);
+      if (list != null && list.length > 0) {
+        lists[listCount++] = list;
+      }
+    }
+    return listCount == lists.length ? lists : Arrays.copyOf(lists, listCount);
+  }
+
+  /**
+   * The events of each attendee, and the events without attendees. The lists are read-only once
+   * built, and a derived instance shares the lists of every attendee whose events did not change.
+   */
+  private static final class EventsByAttendee {
+    private final Map<String, List<Event>> eventsByAttendee;
+    private final List<Event> unattended;
+
+    private EventsByAttendee(Map<String, List<Event>> eventsByAttendee, List<Event> unattended) {
+      this.eventsByAttendee = eventsByAttendee;
+      this.unattended = unattended;
+    }
+
+    /** Groups {@code events} by attendee. */
+    static EventsByAttendee of(Collection<Event> events) {
+      Map<String, List<Event>> eventsByAttendee = new HashMap<>();
+      List<Event> unattended = new ArrayList<>();
+      for (Event event : events) {
+        if (event.getAttendees().isEmpty()) {
+          unattended.add(event);
+        }
+        for (String attendee : event.getAttendees()) {
+          eventsByAttendee.computeIfAbsent(attendee, key -> new ArrayList<>()).add(event);
+        }
+      }
+      return new EventsByAttendee(eventsByAttendee, unattended);
+    }
+
+    /** Returns the events of {@code attendee}, which must not be modified. */
+    List<Event> eventsOf(String attendee) {
+      return eventsByAttendee.getOrDefault(attendee, Collections.<Event>emptyList());
+    }
+
+    /** Returns a builder for a changed copy of these events. */
+    Builder toBuilder() {
+      return new Builder(this);
+    }
+
+    /** Collects changes to an {@link EventsByAttendee}, copying only the lists that change. */
+    static final class Builder {
+      private final EventsByAttendee base;
+      // The changed copies of the lists of the affected attendees.
+      private final Map<String, List<Event>> changed = new HashMap<>();
+      // The changed copy of the events without attendees, or null if they are unchanged.
+      private List<Event> unattended;
+
+      private Builder(EventsByAttendee base) {
+        this.base = base;
+      }
+
+      /** Removes one event equal to {@code event}. Returns false if there is none. */
+      boolean remove(Event event) {
+        Collection<String> attendees = event.getAttendees();
+        if (attendees.isEmpty()) {
+          return changedUnattended().remove(event);
+        }
+        // Equal events have the same attendees, so the first attendee's list tells whether it is
+        // there at all.
+        String first = attendees.iterator().next();
+        List<Event> firstEvents =
+            changed.containsKey(first) ? changed.get(first) : base.eventsOf(first);
+        if (!firstEvents.contains(event)) {
+          return false;
+        }
+        for (String attendee : attendees) {
+          changedEventsOf(attendee).remove(event);
+        }
+        return true;
+      }
+
+      /** Adds {@code event}. */
+      void add(Event event) {
+        if (event.getAttendees().isEmpty()) {
+          changedUnattended().add(event);
+        }
+        for (String attendee : event.getAttendees()) {
+          changedEventsOf(attendee).add(event);
+        }
+      }
+
+      /** Returns the attendees whose events were added or removed. */
+      Set<String> changedAttendees() {
+        return changed.keySet();
+      }
+
+      /** Returns the changed events. Runtime O(A) for A attendees in all. */
+      EventsByAttendee build() {
+        Map<String, List<Event>> eventsByAttendee = new HashMap<>(base.eventsByAttendee);
+        for (Map.Entry<String, List<Event>> entry : changed.entrySet()) {
+          if (entry.getValue().isEmpty()) {
+            eventsByAttendee.remove(entry.getKey());
+          } else {
+            eventsByAttendee.put(entry.getKey(), entry.getValue());
+          }
+        }
+        return new EventsByAttendee(
+            eventsByAttendee, unattended != null ? unattended : base.unattended);
+      }
+
+      private List<Event> changedEventsOf(String attendee) {
+        return changed.computeIfAbsent(attendee, key -> new ArrayList<>(base.eventsOf(key)));
+      }
+
+      private List<Event> changedUnattended() {
+        if (unattended == null) {
+          unattended = new ArrayList<>(base.unattended);
+        }
+        return unattended;
+      }
+    }
+  }
+
+  /** A growable list of packed intervals, used while building the index. */
+  private static final class IntervalList {
+    private long[] intervals = new long[4];
+    private int size = 0;
+
+    private void add(long interval) {
+      if (size == intervals.length) {
+        intervals = Arrays.copyOf(intervals, size * 2);
+      }
+      intervals[size++] = interval;
+    }
+
+    /** Appends the intervals of {@code other}, and returns this list. */
+    private IntervalList addAll(IntervalList other) {
+      for (int i = 0; i < other.size; ++i) {
+        add(other.intervals[i]);
+      }
+      return this;
+    }
+
+    /** Returns the flattened intervals as an exactly sized array. */
+    private long[] flatten() {
+      return Arrays.copyOf(intervals, PackedIntervals.flatten(intervals, size));
+    }
+  }
+}
@@ -0,0 +1,176 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * A static centered interval tree over one attendee's events, answering "which events overlap this
+ * range" by the rules of {@link TimeRange#overlaps} without looking at events that do not.
+ *
+ * <p>An event overlaps a range [s, e) of positive duration if it starts inside the range, or if it
+ * starts before s and is still running at s. The first kind is a contiguous run of the events
+ * sorted by start time. The second is a stabbing query at point s: every tree node holds the events
+ * containing its center, sorted once by start and once by end, so each node on the search path
+ * reports its matches by scanning one list from the front and stops at the first miss. Finding the
+ * k events therefore takes O(log n + k); the events found by the stabbing query are then sorted so
+ * that the results come out in start order.
+ */
+final class EventIntervalTree {
+  private static final Comparator<Event> BY_START =
+      Comparator.comparingInt((Event event) -> event.getWhen().start())
+          .thenComparingInt(event -> event.getWhen().end());
+  private static final Comparator<Event> BY_END_DESCENDING =
+      Comparator.comparingInt((Event event) -> event.getWhen().end()).reversed();
+
+  // Every event, ordered by start time.
+  private final Event[] byStart;
+  private final int[] starts;
+  // The events of positive duration, arranged around the centers of the tree's nodes.
+  private final Node root;
+
+  /** Builds the tree. Runtime O(n log n). */
+  EventIntervalTree(Collection<Event> events) {
+    this.byStart = events.toArray(new Event[0]);
+    Arrays.sort(byStart, BY_START);
+    this.starts = new int[byStart.length];
+    List<Event> positive = new ArrayList<>();
+    for (int i = 0; i < byStart.length; ++i) {
+      starts[i] = byStart[i].getWhen().start();
+      if (byStart[i].getWhen().duration() > 0) {
+        positive.add(byStart[i]);
+      }
+    }
+    this.root = build(positive);
+  }
+
+  /**
+   * Adds the events overlapping {@code range} to {@code out}, ordered by start time.
+   *
+   * @return the number of events added
+   */
+  int overlapping(TimeRange range, List<Event> out) {
+    int before = out.size();
+    if (range.duration() <= 0) {
+      // A point in time is only overlapped by the events running at that point.
+      stab(root, range.start(), range.start(), out);
+      out.subList(before, out.size()).sort(BY_START);
+      return out.size() - before;
+    }
+
+    stab(root, range.start(), range.start() - 1, out);
+    out.subList(before, out.size()).sort(BY_START);
+    for (int i = lowerBound(range.start()); i < starts.length && starts[i] < range.end(); ++i) {
+      out.add(byStart[i]);
+    }
+    return out.size() - before;
+  }
+
+  /** Returns the index of the first event starting at or after {@code start}. */
+  private int lowerBound(int start) {
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (starts[mid] < start) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /** Adds the events that start at or before {@code startLimit} and end after {@code point}. */
+  private static void stab(Node node, int point, int startLimit, List<Event> out) {
+    while (node != null) {
+      if (point < node.center) {
+        // Everything here ends after the center, so only the start needs checking.
+        for (Event event : node.byStart) {
+          if (event.getWhen().start() > startLimit) {
+            break;
+          }
+          out.add(event);
+        }
+        node = node.left;
+      } else if (point > node.center) {
+        // Everything here starts at or before the center, so only the end needs checking.
+        for (Event event : node.byEnd) {
+          if (event.getWhen().end() <= point) {
+            break;
+          }
+          out.add(event);
+        }
+        node = node.right;
+      } else {
+        // Events to the left end by the center, and events to the right start after it.
+        for (Event event : node.byStart) {
+          if (event.getWhen().start() > startLimit) {
+            break;
+          }
+          out.add(event);
+        }
+        return;
+      }
+    }
+  }
+
+  /**
+   * Builds the subtree over events of positive duration, ordered by start time. The center is the
+   * start of the middle event, so each side gets at most half of the events.
+   */
+  private static Node build(List<Event> events) {
+    if (events.isEmpty()) {
+      return null;
+    }
+    int center = events.get(events.size() / 2).getWhen().start();
+    List<Event> left = new ArrayList<>();
+    List<Event> right = new ArrayList<>();
+    List<Event> here = new ArrayList<>();
+    for (Event event : events) {
+      if (event.getWhen().end() <= center) {
+        left.add(event);
+      } else if (event.getWhen().start() > center) {
+        right.add(event);
+      } else {
+        here.add(event);
+      }
+    }
+    Event[] byEnd = here.toArray(new Event[0]);
+    Arrays.sort(byEnd, BY_END_DESCENDING);
+    return new Node(center, here.toArray(new Event[0]), byEnd, build(left), build(right));
+  }
+
+  /** The events containing one center point, and the subtrees on either side of it. */
+  private static final class Node {
+    private final int center;
+    private final Event[] byStart;
+    private final Event[] byEnd;
+    private final Node left;
+    private final Node right;
+
+    Node(int center, Event[] byStart, Event[] byEnd, Node left, Node right) {
+      this.center = center;
+      this.byStart = byStart;
+      this.byEnd = byEnd;
+      this.left = left;
+      this.right = right;
+    }
+  }
+}
@@ -0,0 +1,136 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The events of an {@link EventIndex} snapshot, stored so that deriving the next snapshot does not
+ * copy the events that stay. A derived list only records the events added and removed since the
+ * list it came from, and the full list is put together the first time it is asked for. Once the
+ * recorded changes outnumber the events they apply to, the next derived list is put together right
+ * away, so each event is copied O(1) times per change on average and the chain of recorded changes
+ * stays shorter than the list.
+ *
+ * <p>Instances are immutable apart from the cached full list, and can be shared between threads.
+ */
+final class EventList {
+  // The fully built list that the recorded changes apply to.
+  private final List<Event> base;
+  // The list this one was derived from, or null if this list is its own base.
+  private final EventList parent;
+  private final List<Event> added;
+  private final List<Event> removed;
+  // The number of events added and removed between the base and this list.
+  private final int changeCount;
+  private final int size;
+  // The full list, once it has been put together.
+  private volatile List<Event> events;
+
+  /** Makes a list of {@code events}, which must be read-only. */
+  EventList(List<Event> events) {
+    this.base = events;
+    this.parent = null;
+    this.added = Collections.emptyList();
+    this.removed = Collections.emptyList();
+    this.changeCount = 0;
+    this.size = events.size();
+    this.events = events;
+  }
+
+  private EventList(EventList parent, List<Event> added, List<Event> removed) {
+    this.base = parent.base;
+    this.parent = parent;
+    this.added = added;
+    this.removed = removed;
+    this.changeCount = parent.changeCount + added.size() + removed.size();
+    this.size = parent.size + added.size() - removed.size();
+  }
+
+  /**
+   * Returns a new list with some events removed and others added. Each removal takes out the first
+   * equal event, and additions go at the end. Runtime O(R + D) if the full list is put together now
+   * and O(D) otherwise, for R events in the result and D changes.
+   *
+   * @param added the events to add
+   * @param removed the events to remove, applied before the additions. Each one must be in the list
+   *     once for every time it is removed.
+   */
+  EventList withChanges(List<Event> added, List<Event> removed) {
+    EventList derived = new EventList(this, new ArrayList<>(added), new ArrayList<>(removed));
+    if (derived.changeCount > base.size()) {
+      return new EventList(derived.events());
+    }
+    return derived;
+  }
+
+  /** Returns the number of events. */
+  int size() {
+    return size;
+  }
+
+  /** Returns the events as a read-only list. Runtime O(R + D) the first time it is called. */
+  List<Event> events() {
+    List<Event> events = this.events;
+    if (events == null) {
+      events = Collections.unmodifiableList(build());
+      this.events = events;
+    }
+    return events;
+  }
+
+  /**
+   * Applies the recorded changes to the base. Removals always take out the first equal event that
+   * is still there, and additions go at the end, so the events removed in all are the first ones of
+   * their kind in the base followed by the additions. Skipping that many of each kind gives the
+   * same list as applying the changes one by one.
+   */
+  private List<Event> build() {
+    List<EventList> chain = new ArrayList<>();
+    Map<Event, Integer> removals = new HashMap<>();
+    for (EventList list = this; list.parent != null; list = list.parent) {
+      chain.add(list);
+      for (Event event : list.removed) {
+        removals.merge(event, 1, Integer::sum);
+      }
+    }
+
+    List<Event> events = new ArrayList<>(size);
+    addRemaining(events, base, removals);
+    for (int i = chain.size() - 1; i >= 0; --i) {
+      addRemaining(events, chain.get(i).added, removals);
+    }
+    return events;
+  }
+
+  /** Appends the events that are not removed, counting down the removals they use up. */
+  private static void addRemaining(
+      List<Event> events, List<Event> candidates, Map<Event, Integer> removals) {
+    for (Event event : candidates) {
+      Integer count = removals.isEmpty() ? null : removals.get(event);
+      if (count == null) {
+        events.add(event);
+      } else if (count == 1) {
+        removals.remove(event);
+      } else {
+        removals.put(event, count - 1);
+      }
+    }
+  }
+}
@@ -0,0 +1,294 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only view of an append-only binary event log, written by {@link EventLogWriter}. The file
+ * is memory-mapped, and opening it only records where each record starts, so no events are parsed
+ * or created until they are asked for.
+ *
+ * <p>The file starts with an 8-byte header holding {@link #MAGIC} and {@link #VERSION}, followed by
+ * records of two types, each starting with a type byte:
+ *
+ * <pre>
+ * STRING: type, length, UTF-8 bytes
+ * EVENT:  type, start, end, title, attendee count, attendees...
+ * </pre>
+ *
+ * <p>All numbers are big-endian 4-byte integers. String records form the log's string table: the
+ * n-th string record has ID n, and events refer to their title and attendees by these IDs, which
+ * must belong to earlier string records. Event times must satisfy 0 <= start <= end <= 1440. A
+ * record cut short by a crash during an append is ignored.
+ *
+ * <p>Instances are immutable and can be shared between threads.
+ */
+public final class EventLog {
+  static final int MAGIC = 0x43414C47;
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 8;
+  static final byte STRING_RECORD = 1;
+  static final byte EVENT_RECORD = 2;
+
+  // The mapped file, positioned at 0. Only absolute reads are used, so it is safe to share.
+  private final ByteBuffer buffer;
+  // The offset just past the last complete record.
+  private final int length;
+  // The offsets of all string and event records, after the type byte.
+  private final int[] stringOffsets;
+  private final int[] eventOffsets;
+  // Strings decoded so far, indexed by string ID.
+  private final String[] strings;
+  // The string IDs by string, built on the first lookup.
+  private volatile Map<String, Integer> idsByString;
+
+  private EventLog(ByteBuffer buffer) throws IOException {
+    this.buffer = buffer;
+    if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+      throw new IOException("not an event log");
+    }
+
+    IntList strings = new IntList();
+    IntList events = new IntList();
+    int offset = HEADER_SIZE;
+    while (true) {
+      int next = nextRecord(offset);
+      if (next < 0) {
+        break;
+      }
+      if (buffer.get(offset) == STRING_RECORD) {
+        strings.add(offset + 1);
+      } else {
+        checkEvent(offset, strings.size);
+        events.add(offset + 1);
+      }
+      offset = next;
+    }
+    this.length = offset;
+    this.stringOffsets = strings.toArray();
+    this.eventOffsets = events.toArray();
+    this.strings = new String[stringOffsets.length];
+  }
+
+  /**
+   * Maps an event log into memory. Runtime O(R + A) for R records with A attendees in all, without
+   * decoding any strings or creating any events.
+   *
+   * @param path the log file, at most 2 GiB long
+   * @throws IOException if the file cannot be read, is not an event log, or has an event outside of
+   *     the day or one that refers to strings that are not in its string table
+   */
+  public static EventLog open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("event log too large: " + size + " bytes");
+      }
+      // The mapping stays valid after the channel is closed.
+      return new EventLog(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    }
+  }
+
+  /**
+   * Returns the offset of the record after the one at {@code offset}, or -1 if there is no complete
+   * record at {@code offset}.
+   */
+  private int nextRecord(int offset) throws IOException {
+    int limit = buffer.limit();
+    if (limit - offset < 1 + 4) {
+      return -1;
+    }
+    byte type = buffer.get(offset);
+    if (type == STRING_RECORD) {
+      int byteCount = buffer.getInt(offset + 1);
+      long next = offset + 1 + 4 + (long) byteCount;
+      return byteCount >= 0 && next <= limit ? (int) next : -1;
+    }
+    if (type == EVENT_RECORD) {
+      if (limit - offset < 1 + 4 * 4) {
+        return -1;
+      }
+      int attendeeCount = buffer.getInt(offset + 1 + 3 * 4);
+      long next = offset + 1 + 4 * 4 + 4L * attendeeCount;
+      return attendeeCount >= 0 && next <= limit ? (int) next : -1;
+    }
+    throw new IOException("unknown record type " + type + " at offset " + offset);
+  }
+
+  /**
+   * Checks that the event record at {@code offset} lies within one day and only refers to strings
+   * that come before it, as {@link EventLogWriter} writes them.
+   *
+   * @throws IOException if the record's times are out of order or outside of the day, or it refers
+   *     to a string that is not in the table yet
+   */
+  private void checkEvent(int offset, int stringCount) throws IOException {
+    int start = buffer.getInt(offset + 1);
+    int end = buffer.getInt(offset + 1 + 4);
+    if (start < TimeRange.START_OF_DAY || start > end || end > TimeRange.WHOLE_DAY.end()) {
+      throw new IOException(
+          "event at offset " + offset + " has invalid time range [" + start + ", " + end + ")");
+    }
+    int title = buffer.getInt(offset + 1 + 2 * 4);
+    if (title < 0 || title >= stringCount) {
+      throw new IOException("event at offset " + offset + " has unknown title string " + title);
+    }
+    int attendeeCount = buffer.getInt(offset + 1 + 3 * 4);
+    for (int i = 0; i < attendeeCount; ++i) {
+      int attendee = buffer.getInt(offset + 1 + 4 * 4 + 4 * i);
+      if (attendee < 0 || attendee >= stringCount) {
+        throw new IOException(
+            "event at offset " + offset + " has unknown attendee string " + attendee);
+      }
+    }
+  }
+
+  /** Returns the number of events in the log. */
+  public int size() {
+    return eventOffsets.length;
+  }
+
+  /** Returns the start of event {@code index}, in minutes. */
+  int start(int index) {
+    return buffer.getInt(eventOffsets[index]);
+  }
+
+  /** Returns the exclusive end of event {@code index}, in minutes. */
+  int end(int index) {
+    return buffer.getInt(eventOffsets[index] + 4);
+  }
+
+  /** Returns the number of attendees of event {@code index}. */
+  int attendeeCount(int index) {
+    return buffer.getInt(eventOffsets[index] + 3 * 4);
+  }
+
+  /** Returns the string ID of attendee {@code attendee} of event {@code index}. */
+  int attendee(int index, int attendee) {
+    return buffer.getInt(eventOffsets[index] + 4 * 4 + 4 * attendee);
+  }
+
+  /** Returns the number of strings in the log's string table. */
+  int stringCount() {
+    return stringOffsets.length;
+  }
+
+  /** Returns the string with the given ID. */
+  String string(int id) {
+    if (id < 0 || id >= strings.length) {
+      throw new IllegalArgumentException("no string with ID " + id);
+    }
+    String string = strings[id];
+    if (string == null) {
+      int offset = stringOffsets[id];
+      byte[] bytes = new byte[buffer.getInt(offset)];
+      ByteBuffer view = buffer.duplicate();
+      view.position(offset + 4);
+      view.get(bytes);
+      string = new String(bytes, StandardCharsets.UTF_8);
+      strings[id] = string;
+    }
+    return string;
+  }
+
+  /** Returns the ID of {@code string} in the log's string table, or -1 if it is not there. */
+  int lookup(String string) {
+    Map<String, Integer> ids = idsByString;
+    if (ids == null) {
+      ids = new HashMap<>();
+      for (int id = 0; id < stringOffsets.length; ++id) {
+        ids.put(string(id), id);
+      }
+      idsByString = ids;
+    }
+    Integer id = ids.get(string);
+    return id != null ? id : -1;
+  }
+
+  /** Returns the offset just past the last complete record, where the next record belongs. */
+  int length() {
+    return length;
+  }
+
+  /** Creates the event at {@code index}. */
+  public Event event(int index) {
+    String[] attendees = new String[attendeeCount(index)];
+    for (int i = 0; i < attendees.length; ++i) {
+      attendees[i] = string(attendee(index, i));
+    }
+    int offset = eventOffsets[index];
+    return new Event(
+        string(buffer.getInt(offset + 2 * 4)),
+        TimeRange.fromStartEnd(start(index), end(index), false),
+        Arrays.asList(attendees));
+  }
+
+  /** Returns a read-only list view of the events, which creates each event when it is read. */
+  public List<Event> events() {
+    return new AbstractList<Event>() {
+      @Override
+      public Event get(int index) {
+        return event(index);
+      }
+
+      @Override
+      public int size() {
+        return EventLog.this.size();
+      }
+    };
+  }
+
+  /**
+   * Marks the string IDs of a group of attendees in {@code marks}, which is indexed by string ID.
+   * Attendees that are not in the log are skipped.
+   */
+  void mark(Collection<String> attendees, byte[] marks, int mark) {
+    for (String attendee : attendees) {
+      int id = lookup(attendee);
+      if (id >= 0) {
+        marks[id] |= mark;
+      }
+    }
+  }
+
+  /** A growable list of ints, used while scanning the log. */
+  private static final class IntList {
+    private int[] values = new int[16];
+    private int size = 0;
+
+    private void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    private int[] toArray() {
+      return Arrays.copyOf(values, size);
+    }
+  }
+}
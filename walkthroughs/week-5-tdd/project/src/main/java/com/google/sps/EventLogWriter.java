@@ -0,0 +1,147 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Appends events to an event log in the format described in {@link EventLog}. Opening an existing
+ * log continues its string table, and drops any record cut short by an earlier crash.
+ *
+ * <p>Appended records are buffered, and reach the file on {@link #flush} or {@link #close}. A
+ * writer is not thread-safe, and at most one writer may have a log open at a time.
+ */
+public final class EventLogWriter implements Closeable {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final FileChannel channel;
+  private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+  // The string IDs of everything already in the string table.
+  private final Map<String, Integer> idsByString = new HashMap<>();
+
+  /**
+   * Opens a log for appending, creating it if it does not exist.
+   *
+   * @param path the log file
+   * @throws IOException if the file cannot be opened or is not an event log
+   */
+  public EventLogWriter(Path path) throws IOException {
+    long length = 0;
+    if (Files.exists(path) && Files.size(path) > 0) {
+      EventLog log = EventLog.open(path);
+      for (int id = 0; id < log.stringCount(); ++id) {
+        idsByString.put(log.string(id), id);
+      }
+      length = log.length();
+    }
+
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    // Drop any incomplete record at the end, so that new records follow the last complete one.
+    channel.truncate(length);
+    channel.position(length);
+    if (length == 0) {
+      buffer.putInt(EventLog.MAGIC).putInt(EventLog.VERSION);
+    }
+  }
+
+  /**
+   * Appends an event, adding its title and attendees to the string table if needed.
+   *
+   * @throws IllegalArgumentException if the event does not lie within one day
+   */
+  public void append(Event event) throws IOException {
+    TimeRange when = event.getWhen();
+    if (when.start() < TimeRange.START_OF_DAY
+        || when.start() > when.end()
+        || when.end() > TimeRange.WHOLE_DAY.end()) {
+      throw new IllegalArgumentException("event must lie within one day: " + when);
+    }
+    int title = stringId(event.getTitle());
+    int[] attendees = new int[event.getAttendees().size()];
+    int i = 0;
+    for (String attendee : event.getAttendees()) {
+      attendees[i++] = stringId(attendee);
+    }
+
+    ensureRoom(1 + 4 * 4 + 4 * attendees.length);
+    buffer
+        .put(EventLog.EVENT_RECORD)
+        .putInt(event.getWhen().start())
+        .putInt(event.getWhen().end())
+        .putInt(title)
+        .putInt(attendees.length);
+    for (int attendee : attendees) {
+      buffer.putInt(attendee);
+    }
+  }
+
+  /** Returns the ID of {@code string}, appending a string record if it is new. */
+  private int stringId(String string) throws IOException {
+    Integer id = idsByString.get(string);
+    if (id != null) {
+      return id;
+    }
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    ensureRoom(1 + 4 + bytes.length);
+    buffer.put(EventLog.STRING_RECORD).putInt(bytes.length).put(bytes);
+    id = idsByString.size();
+    idsByString.put(string, id);
+    return id;
+  }
+
+  /**
+   * Flushes the buffer if it cannot hold {@code size} more bytes, and grows it if even an empty
+   * buffer is too small. The buffer at least doubles each time it grows and never shrinks, so a run
+   * of large records reallocates it only a logarithmic number of times.
+   */
+  private void ensureRoom(int size) throws IOException {
+    if (buffer.remaining() < size) {
+      flush();
+    }
+    if (buffer.capacity() < size) {
+      buffer =
+          ByteBuffer.allocate(
+              (int) Long.min(Integer.MAX_VALUE, Long.max(size, 2L * buffer.capacity())));
+    }
+  }
+
+  /** Writes all buffered records to the file. */
+  public void flush() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /** Flushes all buffered records and closes the log. */
+  @Override
+  public void close() throws IOException {
+    try {
+      flush();
+    } finally {
+      channel.close();
+    }
+  }
+}
@@ -14,14 +14,15 @@
 
 package com.google.sps;
 
+import com.google.sps.QueryMetrics.Metric;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * This class provides an implementation of an algorithm designed to determine time intervals
@@ -34,8 +35,40 @@ import java.util.TreeMap;
  *
  * <p>This algorithm's *expected* runtime is O(M + E log E), where M = the number of mandatory
  * attendees and E = the number of events and each of their attendees.
+ *
+ * <p>Collections of at least {@link #DEFAULT_PARALLEL_THRESHOLD} events are split across ForkJoin
+ * tasks, which build their conflict sets in parallel.
+ *
+ * <p>While {@link QueryMetrics} recording is on, each phase of a query is timed and counted.
  */
 public final class FindMeetingQuery {
+  /** The default number of events at which conflict sets are built in parallel. */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 8192;
+
+  // Marks for the log's string table in query(EventLog, MeetingRequest).
+  private static final byte MANDATORY = 1;
+  private static final byte OPTIONAL = 2;
+
+  // Event collections at least this large are handled by the parallel path.
+  private final int parallelThreshold;
+
+  /** Makes a new FindMeetingQuery using the default parallel threshold. */
+  public FindMeetingQuery() {
+    this(DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * Makes a new FindMeetingQuery.
+   *
+   * @param parallelThreshold the number of events at which conflict sets are built in parallel.
+   *     Must be positive.
+   */
+  public FindMeetingQuery(int parallelThreshold) {
+    if (parallelThreshold <= 0) {
+      throw new IllegalArgumentException("parallelThreshold must be positive");
+    }
+    this.parallelThreshold = parallelThreshold;
+  }
 
   /**
    * Finds all time intervals, if they exist, where all a meeting request's mandatory attendees are
@@ -48,32 +81,130 @@ public final class FindMeetingQuery {
    *     empty collection if no valid times exist.
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-    // Expected O(M) time
-    Set<String> requestedAttendees = new HashSet<String>(request.getAttendees());
-    Set<String> optionalAttendees = new HashSet<String>(request.getOptionalAttendees());
+    // Events are interned as they are visited, and the request's names are looked up in the same
+    // dictionary, so the request's names are never interned themselves.
+    AttendeeIds dictionary = AttendeeIds.current();
 
     // Expected O(E log E) time
-    SortedMap<Integer, TimeRange> rawConflictSet = new TreeMap<Integer, TimeRange>();
-    SortedMap<Integer, TimeRange> rawOptionalConflictSet = new TreeMap<Integer, TimeRange>();
-    generateRawConflictSet(
-        rawConflictSet, rawOptionalConflictSet, events, requestedAttendees, optionalAttendees);
+    List<TimeRange> conflictSet;
+    List<TimeRange> optionalConflictSet;
+    QueryMetrics.record(Metric.EVENTS_SCANNED, events.size());
+    long phaseStart = QueryMetrics.start();
+    if (events.size() >= parallelThreshold) {
+      // The parallel path interleaves finding and flattening, so it is timed as one phase.
+      List<Event> eventList = new ArrayList<Event>(events);
+      ConflictSetTask task = new ConflictSetTask(eventList, dictionary, request);
+      ConflictSets conflictSets = ForkJoinPool.commonPool().invoke(task);
+      conflictSet = conflictSets.mandatory;
+      optionalConflictSet = conflictSets.optional;
+      QueryMetrics.stop(Metric.GENERATE_RAW_CONFLICT_SET_NANOS, phaseStart);
+      QueryMetrics.record(Metric.EVENTS_MATCHED, conflictSets.matchedEvents);
+      QueryMetrics.record(Metric.INTERVALS_MERGED, conflictSets.mergedIntervals);
+    } else {
+      SortedMap<Integer, TimeRange> rawConflictSet = new TreeMap<Integer, TimeRange>();
+      SortedMap<Integer, TimeRange> rawOptionalConflictSet = new TreeMap<Integer, TimeRange>();
+      int matchedEvents =
+          generateRawConflictSet(
+              rawConflictSet, rawOptionalConflictSet, events, dictionary, request);
+      QueryMetrics.stop(Metric.GENERATE_RAW_CONFLICT_SET_NANOS, phaseStart);
+      QueryMetrics.record(Metric.EVENTS_MATCHED, matchedEvents);
+
+      phaseStart = QueryMetrics.start();
+      conflictSet = cleanConflictSet(rawConflictSet.values());
+      optionalConflictSet = cleanConflictSet(rawOptionalConflictSet.values());
+      QueryMetrics.stop(Metric.CLEAN_CONFLICT_SET_NANOS, phaseStart);
+      QueryMetrics.record(
+          Metric.INTERVALS_MERGED,
+          rawConflictSet.size()
+              + rawOptionalConflictSet.size()
+              - conflictSet.size()
+              - optionalConflictSet.size());
+    }
 
-    List<TimeRange> conflictSet = cleanConflictSet(rawConflictSet.values());
-    List<TimeRange> optionalConflictSet = cleanConflictSet(rawOptionalConflictSet.values());
+    phaseStart = QueryMetrics.start();
     List<TimeRange> combinedConflictSet = combineConflictSets(conflictSet, optionalConflictSet);
+    QueryMetrics.stop(Metric.COMBINE_CONFLICT_SETS_NANOS, phaseStart);
 
-    Collection<TimeRange> combinedValidTimes =
-        getValidTimes(combinedConflictSet, request.getDuration());
-    if (!combinedValidTimes.isEmpty()) {
-      return combinedValidTimes;
+    phaseStart = QueryMetrics.start();
+    try {
+      Collection<TimeRange> combinedValidTimes =
+          getValidTimes(combinedConflictSet, request.getDuration());
+      if (!combinedValidTimes.isEmpty()) {
+        return combinedValidTimes;
+      }
+      // Edge case -- if all optional attendees cannot meet
+      // and there are no mandatory attendees, we return no times, according to
+      // the test optionalOnlyNoGaps
+      if (request.getAttendees().isEmpty()) {
+        return Arrays.asList();
+      }
+      return getValidTimes(conflictSet, request.getDuration());
+    } finally {
+      QueryMetrics.stop(Metric.GET_VALID_TIMES_NANOS, phaseStart);
     }
-    // Edge case -- if all optional attendees cannot meet
-    // and there are no mandatory attendees, we return no times, according to
-    // the test optionalOnlyNoGaps
-    if (request.getAttendees().isEmpty()) {
-      return Arrays.asList();
+  }
+
+  /**
+   * Finds all time intervals on one day where a meeting request's attendees can meet, given the
+   * one-off events of that day and a set of recurring events. Recurring events are expanded lazily,
+   * only for {@code day}, while the conflicts are collected. The answers are identical to {@link
+   * #query(Collection, MeetingRequest)} over the one-off events and each recurring event's
+   * occurrence on {@code day}.
+   *
+   * @param events the collection of all one-off events scheduled on {@code day}
+   * @param recurringEvents the collection of all recurring events
+   * @param day the day of the meeting
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events,
+      Collection<RecurringEvent> recurringEvents,
+      int day,
+      MeetingRequest request) {
+    return new PackedFindMeetingQuery().query(events, recurringEvents, day, request);
+  }
+
+  /**
+   * Finds all time intervals where a meeting request's attendees can meet, reading the events in
+   * place from a memory-mapped event log. No {@code Event} objects are created. The answers are
+   * identical to {@link #query(Collection, MeetingRequest)} over the same events.
+   *
+   * @param log the event log holding all scheduled events
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> query(EventLog log, MeetingRequest request) {
+    // Mark each requested attendee's entry in the log's string table.
+    byte[] marks = new byte[log.stringCount()];
+    log.mark(request.getAttendees(), marks, MANDATORY);
+    log.mark(request.getOptionalAttendees(), marks, OPTIONAL);
+
+    long[] conflicts = new long[log.size()];
+    long[] optionalConflicts = new long[log.size()];
+    int conflictCount = 0;
+    int optionalConflictCount = 0;
+    for (int event = 0; event < log.size(); ++event) {
+      int eventMarks = 0;
+      for (int i = 0, count = log.attendeeCount(event); i < count; ++i) {
+        eventMarks |= marks[log.attendee(event, i)];
+      }
+      if (eventMarks == 0) {
+        continue;
+      }
+      long interval = PackedIntervals.pack(log.start(event), log.end(event));
+      if ((eventMarks & MANDATORY) != 0) {
+        conflicts[conflictCount++] = interval;
+      }
+      if ((eventMarks & OPTIONAL) != 0) {
+        optionalConflicts[optionalConflictCount++] = interval;
+      }
     }
-    return getValidTimes(conflictSet, request.getDuration());
+
+    return PackedFindMeetingQuery.validTimes(
+        conflicts, conflictCount, optionalConflicts, optionalConflictCount, request);
   }
 
   /**
@@ -92,12 +223,13 @@ public final class FindMeetingQuery {
    * </pre>
    *
    * <p>- I choose an appropriate implementation for each of the abstract operations above. (1) is
-   * implemented as a hashtable lookup, where each of m's attendees is looked up in the prepared
-   * hashtable of request's attendees, in O(m's attendees) time. (2) is implemented in two phases,
-   * the first being the insertion of all conflicting time ranges into a set ordered by start time,
-   * with O(log n) insertion time. The first phase returns a set which may have several overlapping
-   * entries. Thus, the second phase, done outside of the loop, converts the raw set in O(n) time
-   * into a set without overlapping entries.
+   * implemented on interned attendee IDs (see {@link AttendeeSet}): a bitwise AND when all IDs are
+   * small, and otherwise a merge of m's and the request's sorted IDs, in O(m's attendees +
+   * request's attendees) time. (2) is implemented in two phases, the first being the insertion of
+   * all conflicting time ranges into a set ordered by start time, with O(log n) insertion time. The
+   * first phase returns a set which may have several overlapping entries. Thus, the second phase,
+   * done outside of the loop, converts the raw set in O(n) time into a set without overlapping
+   * entries.
    *
    * <p>To incorporate optional attendees, I duplicate operations (1) and (2) for optional
    * attendees, storing the results in another set and cleaning that set separately. I then create
@@ -114,40 +246,37 @@ public final class FindMeetingQuery {
    *
    * @param rawConflictSet Overlapping set of all
    * @param events the collection of all events
-   * @param requestedAttendees the set of all requested attendees.
+   * @param dictionary the dictionary the events are interned into
+   * @param request the meeting request whose attendees are matched
+   * @return the number of events involving a requested or optional attendee
    */
-  private void generateRawConflictSet(
+  private int generateRawConflictSet(
       SortedMap<Integer, TimeRange> rawConflictSet,
       SortedMap<Integer, TimeRange> rawOptionalConflictSet,
       Collection<Event> events,
-      Set<String> requestedAttendees,
-      Set<String> optionalAttendees) {
+      AttendeeIds dictionary,
+      MeetingRequest request) {
+    AttendeeSet.Lookup requestedAttendees =
+        new AttendeeSet.Lookup(request.getAttendees(), dictionary);
+    AttendeeSet.Lookup optionalAttendees =
+        new AttendeeSet.Lookup(request.getOptionalAttendees(), dictionary);
+    int matchedEvents = 0;
     for (Event event : events) {
-      if (attendeesIntersect(event.getAttendees(), requestedAttendees)) {
+      AttendeeSet attendees = event.getAttendeeSet(dictionary);
+      boolean matched = false;
+      if (attendees.intersects(requestedAttendees.get())) {
         insertTimeRange(rawConflictSet, event.getWhen());
+        matched = true;
       }
-      if (attendeesIntersect(event.getAttendees(), optionalAttendees)) {
+      if (attendees.intersects(optionalAttendees.get())) {
         insertTimeRange(rawOptionalConflictSet, event.getWhen());
+        matched = true;
       }
-    }
-  }
-
-  /**
-   * Determines if a set of meeting attendees intersects with our hashtable of requested attendees.
-   * Expected runtime is O(n), where n is the size of the set of attendees (not the hashtable)
-   *
-   * @param meetingAttendees a set of meeting attendees
-   * @param requestedAttendees a hashtable of requested attendees.
-   * @return Whether the sets intersect
-   */
-  private boolean attendeesIntersect(
-      Collection<String> meetingAttendees, Set<String> requestedAttendees) {
-    for (String attendee : meetingAttendees) {
-      if (requestedAttendees.contains(attendee)) {
-        return true;
+      if (matched) {
+        ++matchedEvents;
       }
     }
-    return false;
+    return matchedEvents;
   }
 
   /**
@@ -226,6 +355,92 @@ public final class FindMeetingQuery {
     return builder.getFlatRangeSet();
   }
 
+  /**
+   * Builds the cleaned mandatory and optional conflict sets of a slice of the events. Slices larger
+   * than the parallel threshold are split in half, and the halves' conflict sets are combined
+   * pairwise with {@link #combineConflictSets}.
+   */
+  private class ConflictSetTask extends RecursiveTask<ConflictSets> {
+    private final List<Event> events;
+    private final AttendeeIds dictionary;
+    private final MeetingRequest request;
+
+    ConflictSetTask(List<Event> events, AttendeeIds dictionary, MeetingRequest request) {
+      this.events = events;
+      this.dictionary = dictionary;
+      this.request = request;
+    }
+
+    @Override
+    protected ConflictSets compute() {
+      if (events.size() <= parallelThreshold) {
+        SortedMap<Integer, TimeRange> rawConflictSet = new TreeMap<Integer, TimeRange>();
+        SortedMap<Integer, TimeRange> rawOptionalConflictSet = new TreeMap<Integer, TimeRange>();
+        int matchedEvents =
+            generateRawConflictSet(
+                rawConflictSet, rawOptionalConflictSet, events, dictionary, request);
+        List<TimeRange> conflictSet = cleanConflictSet(rawConflictSet.values());
+        List<TimeRange> optionalConflictSet = cleanConflictSet(rawOptionalConflictSet.values());
+        return new ConflictSets(
+            conflictSet,
+            optionalConflictSet,
+            matchedEvents,
+            rawConflictSet.size()
+                + rawOptionalConflictSet.size()
+                - conflictSet.size()
+                - optionalConflictSet.size());
+      }
+
+      int middle = events.size() / 2;
+      ConflictSetTask left = new ConflictSetTask(events.subList(0, middle), dictionary, request);
+      ConflictSetTask right =
+          new ConflictSetTask(events.subList(middle, events.size()), dictionary, request);
+      left.fork();
+      ConflictSets rightSets = right.compute();
+      ConflictSets leftSets = left.join();
+      List<TimeRange> conflictSet = combineConflictSets(leftSets.mandatory, rightSets.mandatory);
+      List<TimeRange> optionalConflictSet =
+          combineConflictSets(leftSets.optional, rightSets.optional);
+      // Intervals of the two halves that touch across the split are merged here.
+      int mergedIntervals =
+          leftSets.mandatory.size()
+              + rightSets.mandatory.size()
+              + leftSets.optional.size()
+              + rightSets.optional.size()
+              - conflictSet.size()
+              - optionalConflictSet.size();
+      return new ConflictSets(
+          conflictSet,
+          optionalConflictSet,
+          leftSets.matchedEvents + rightSets.matchedEvents,
+          leftSets.mergedIntervals + rightSets.mergedIntervals + mergedIntervals);
+    }
+  }
+
+  /**
+   * The cleaned mandatory and optional conflict sets of a slice of the events, with the counts that
+   * {@link QueryMetrics} records for the slice.
+   */
+  private static final class ConflictSets {
+    private final List<TimeRange> mandatory;
+    private final List<TimeRange> optional;
+    // The number of events in the slice that involve a requested attendee.
+    private final int matchedEvents;
+    // The number of conflicting intervals that were folded into others.
+    private final int mergedIntervals;
+
+    ConflictSets(
+        List<TimeRange> mandatory,
+        List<TimeRange> optional,
+        int matchedEvents,
+        int mergedIntervals) {
+      this.mandatory = mandatory;
+      this.optional = optional;
+      this.matchedEvents = matchedEvents;
+      this.mergedIntervals = mergedIntervals;
+    }
+  }
+
   /** Builds a flattened range set, where none of the elements overlap. */
   private class FlatRangeSetBuilder {
     private List<TimeRange> rangeSet;
@@ -255,10 +470,12 @@ public final class FindMeetingQuery {
         startTime = rawRange.start();
         endTime = rawRange.end();
       } else {
-        if (rawRange.start() < endTime) {
+        if (rawRange.start() == startTime || rawRange.start() < endTime) {
           // Temporary time range := UNION(temporary time range, RawRange)
           // Because both inputs are sorted, we do not need to consider
-          // the case where rawRange.start() < startTime.
+          // the case where rawRange.start() < startTime. Ranges sharing a start time are
+          // merged even when the temporary range is empty, so that the result does not depend
+          // on the order in which tied ranges arrive.
           endTime = Integer.max(rawRange.end(), endTime);
         } else {
           // Add temporary time range
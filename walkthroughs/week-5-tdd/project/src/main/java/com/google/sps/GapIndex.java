@@ -0,0 +1,253 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An index over the free minutes of a group of attendees, for answering "when is the first slot of
+ * D minutes after T?" without recomputing every valid time.
+ *
+ * <p>The index is a segment tree over the 1440 minutes of the day. Each node holds the number of
+ * events that cover its whole range, and the lengths of the free runs at its start, at its end and
+ * anywhere inside it, so an event is inserted or removed in O(log n) for n = 1440, and {@link
+ * #earliestFit} descends straight to the first run that is long enough in O(log n).
+ *
+ * <p>Like {@link EventIndex#queryBitmap}, the index works on whole minutes: events of zero duration
+ * are ignored, and meetings must be at least one minute long. Gaps reaching the end of the day are
+ * measured against {@link TimeRange#END_OF_DAY}, as {@link EventIndex#query} does, so the last
+ * minute of the day is never offered. Instances are not thread-safe.
+ */
+public final class GapIndex {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+
+  // The attendees' names as given. They are not interned, since they usually come from a request.
+  private final Set<String> attendees;
+  // For each node: the number of events covering its whole range, and the lengths of its longest
+  // free run at the start, at the end and anywhere. Nodes are numbered from 1, as in a binary heap.
+  private final int[] cover = new int[4 * MINUTES];
+  private final int[] prefix = new int[4 * MINUTES];
+  private final int[] suffix = new int[4 * MINUTES];
+  private final int[] longest = new int[4 * MINUTES];
+  // The length of the free run that ends where the current earliestFit search has got to.
+  private int carry;
+
+  /**
+   * Creates an index where the given attendees are free all day.
+   *
+   * @param attendees the group whose free time is indexed
+   */
+  public GapIndex(Collection<String> attendees) {
+    this.attendees = new HashSet<>(attendees);
+    build(1, 0, MINUTES);
+    // See the class comment: the last minute is never part of a slot.
+    update(1, 0, MINUTES, TimeRange.END_OF_DAY, MINUTES, 1);
+  }
+
+  /** Creates an index of the free time of {@code attendees} around a collection of events. */
+  public static GapIndex of(Collection<Event> events, Collection<String> attendees) {
+    GapIndex index = new GapIndex(attendees);
+    for (Event event : events) {
+      index.insert(event);
+    }
+    return index;
+  }
+
+  /**
+   * Adds an event, if it involves any of the indexed attendees. Runtime O(log n).
+   *
+   * @return whether the event involves an indexed attendee
+   */
+  public boolean insert(Event event) {
+    return apply(event, 1);
+  }
+
+  /**
+   * Removes an event that was added before, if it involves any of the indexed attendees. Runtime
+   * O(log n).
+   *
+   * @return whether the event involves an indexed attendee
+   */
+  public boolean remove(Event event) {
+    return apply(event, -1);
+  }
+
+  private boolean apply(Event event, int delta) {
+    if (Collections.disjoint(event.getAttendees(), attendees)) {
+      return false;
+    }
+    int start = Integer.max(0, event.getWhen().start());
+    int end = Integer.min(MINUTES, event.getWhen().end());
+    if (start < end) {
+      update(1, 0, MINUTES, start, end, delta);
+    }
+    return true;
+  }
+
+  /**
+   * Finds the first slot of {@code duration} minutes that starts at or after {@code after}. Runtime
+   * O(log n).
+   *
+   * @param after the earliest start time, in minutes
+   * @param duration the length of the meeting in minutes. Must be positive.
+   * @return the start of the slot, or -1 if there is none
+   */
+  public int earliestFit(int after, int duration) {
+    if (duration <= 0) {
+      throw new IllegalArgumentException("duration must be positive");
+    }
+    carry = 0;
+    return find(1, 0, MINUTES, Integer.max(0, after), duration);
+  }
+
+  /**
+   * Returns the free runs of at least {@code duration} minutes inside a window, cut off at the
+   * window's edges. Runtime O((k + 1) log n) for k runs.
+   *
+   * @param window the part of the day to search
+   * @param duration the length of the meeting in minutes. Must be positive.
+   * @return the ordered runs
+   */
+  public List<TimeRange> fitsInWindow(TimeRange window, int duration) {
+    List<TimeRange> fits = new ArrayList<TimeRange>();
+    int windowEnd = Integer.min(window.end(), MINUTES);
+    int from = window.start();
+    while (from < windowEnd) {
+      int start = earliestFit(from, duration);
+      if (start < 0 || start + duration > windowEnd) {
+        break;
+      }
+      int end = Integer.min(firstCovered(1, 0, MINUTES, start), windowEnd);
+      if (end == TimeRange.END_OF_DAY
+          && windowEnd == MINUTES
+          && coverAt(TimeRange.END_OF_DAY) == 1) {
+        // Only the reserved last minute ends the run, so it really runs to the end of the day.
+        fits.add(TimeRange.fromStartEnd(start, TimeRange.END_OF_DAY, true));
+      } else {
+        fits.add(TimeRange.fromStartEnd(start, end, false));
+      }
+      from = end;
+    }
+    return fits;
+  }
+
+  private void build(int node, int lo, int hi) {
+    prefix[node] = suffix[node] = longest[node] = hi - lo;
+    if (hi - lo > 1) {
+      int mid = (lo + hi) >>> 1;
+      build(2 * node, lo, mid);
+      build(2 * node + 1, mid, hi);
+    }
+  }
+
+  /** Adds {@code delta} to the cover of [start, end) within the node's range [lo, hi). */
+  private void update(int node, int lo, int hi, int start, int end, int delta) {
+    if (end <= lo || hi <= start) {
+      return;
+    }
+    if (start <= lo && hi <= end) {
+      cover[node] += delta;
+    } else {
+      int mid = (lo + hi) >>> 1;
+      update(2 * node, lo, mid, start, end, delta);
+      update(2 * node + 1, mid, hi, start, end, delta);
+    }
+    pull(node, lo, hi);
+  }
+
+  /** Recomputes a node's free runs from its cover and its children. */
+  private void pull(int node, int lo, int hi) {
+    if (cover[node] > 0) {
+      prefix[node] = suffix[node] = longest[node] = 0;
+    } else if (hi - lo == 1) {
+      prefix[node] = suffix[node] = longest[node] = 1;
+    } else {
+      int mid = (lo + hi) >>> 1;
+      int left = 2 * node;
+      int right = 2 * node + 1;
+      prefix[node] = prefix[left] == mid - lo ? mid - lo + prefix[right] : prefix[left];
+      suffix[node] = suffix[right] == hi - mid ? hi - mid + suffix[left] : suffix[right];
+      longest[node] =
+          Integer.max(Integer.max(longest[left], longest[right]), suffix[left] + prefix[right]);
+    }
+  }
+
+  /**
+   * Returns the start of the first free run of {@code duration} minutes in the node's range that
+   * starts at or after {@code after}, continuing a run of {@link #carry} minutes that ends at lo.
+   */
+  private int find(int node, int lo, int hi, int after, int duration) {
+    if (hi <= after) {
+      return -1;
+    }
+    if (lo >= after) {
+      if (carry + prefix[node] >= duration) {
+        return lo - carry;
+      }
+      if (longest[node] < duration) {
+        carry = prefix[node] == hi - lo ? carry + hi - lo : suffix[node];
+        return -1;
+      }
+      // Otherwise the run lies inside this node.
+    } else if (cover[node] > 0) {
+      carry = 0;
+      return -1;
+    }
+    int mid = (lo + hi) >>> 1;
+    int start = find(2 * node, lo, mid, after, duration);
+    return start >= 0 ? start : find(2 * node + 1, mid, hi, after, duration);
+  }
+
+  /** Returns the first covered minute at or after {@code from} in the node's range, or -1. */
+  private int firstCovered(int node, int lo, int hi, int from) {
+    if (hi <= from) {
+      return -1;
+    }
+    if (cover[node] > 0) {
+      return Integer.max(lo, from);
+    }
+    if (hi - lo == 1 || (lo >= from && prefix[node] == hi - lo)) {
+      return -1;
+    }
+    int mid = (lo + hi) >>> 1;
+    int covered = firstCovered(2 * node, lo, mid, from);
+    return covered >= 0 ? covered : firstCovered(2 * node + 1, mid, hi, from);
+  }
+
+  /** Returns the number of events covering {@code minute}. */
+  private int coverAt(int minute) {
+    int count = 0;
+    int node = 1, lo = 0, hi = MINUTES;
+    while (true) {
+      count += cover[node];
+      if (hi - lo == 1) {
+        return count;
+      }
+      int mid = (lo + hi) >>> 1;
+      if (minute < mid) {
+        node = 2 * node;
+        hi = mid;
+      } else {
+        node = 2 * node + 1;
+        lo = mid;
+      }
+    }
+  }
+}
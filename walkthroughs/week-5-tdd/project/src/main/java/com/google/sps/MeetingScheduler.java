@@ -0,0 +1,393 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Places a batch of related meetings, such as an interview loop, so that each one fits its
+ * attendees' calendars and no two meetings sharing an attendee overlap.
+ *
+ * <p>Algorithm design approach:
+ *
+ * <p>- Each meeting starts with a domain: the free gaps of its attendees. A meeting may start at
+ * the start of any gap, or at any multiple of the step size inside a gap, as long as it ends within
+ * the gap.
+ *
+ * <p>- Optional attendees are a preference for the whole batch, as they are for a single request in
+ * {@link FindMeetingQuery#query}. The search first runs as if every optional attendee were
+ * mandatory: domains leave them free, and meetings sharing one of them may not overlap. Only if the
+ * batch does not fit that way does it run again with the mandatory attendees alone, so one
+ * meeting's optional attendees never cost another meeting its slot. The optional attendees of a
+ * meeting without mandatory attendees always count as mandatory.
+ *
+ * <p>- Backtracking search picks the unplaced meeting with the fewest possible starts first (the
+ * most constrained variable), and tries its starts from earliest to latest.
+ *
+ * <p>- Placing a meeting removes its time from the domains of the unplaced meetings that share an
+ * attendee with it (forward checking). As soon as one of them has no room left, the placement is
+ * undone, so dead ends are found before descending into them.
+ *
+ * <p>The search gives up after a configurable number of nodes, where each node is one tried start.
+ * The returned {@link Schedule} reports the number of nodes and the time taken.
+ */
+public final class MeetingScheduler {
+  /** The default spacing of the start times tried inside a gap, in minutes. */
+  public static final int DEFAULT_STEP_MINUTES = 15;
+  /** The default number of search nodes after which the search gives up. */
+  public static final long DEFAULT_MAX_NODES = 1_000_000;
+
+  private final int stepMinutes;
+  private final long maxNodes;
+
+  /** Makes a new MeetingScheduler with the default step size and node limit. */
+  public MeetingScheduler() {
+    this(DEFAULT_STEP_MINUTES, DEFAULT_MAX_NODES);
+  }
+
+  /**
+   * Makes a new MeetingScheduler.
+   *
+   * @param stepMinutes the spacing of the start times tried inside a gap. Must be positive.
+   * @param maxNodes the number of search nodes after which the search gives up. Must be positive.
+   */
+  public MeetingScheduler(int stepMinutes, long maxNodes) {
+    if (stepMinutes <= 0) {
+      throw new IllegalArgumentException("stepMinutes must be positive");
+    }
+    if (maxNodes <= 0) {
+      throw new IllegalArgumentException("maxNodes must be positive");
+    }
+    this.stepMinutes = stepMinutes;
+    this.maxNodes = maxNodes;
+  }
+
+  /**
+   * Finds a slot for every meeting in a batch.
+   *
+   * @param index the index of all scheduled events
+   * @param requests the meetings to place
+   * @return the slots in request order if all meetings could be placed, and the search statistics
+   */
+  public Schedule schedule(EventIndex index, List<MeetingRequest> requests) {
+    long startNanos = System.nanoTime();
+    Search search = null;
+    boolean optionalFit = false;
+    if (hasOptionalAttendees(requests)) {
+      search = new Search(index, requests, /* withOptional= */ true, /* nodes= */ 0);
+      optionalFit = search.place(0);
+    }
+    boolean found = optionalFit;
+    if (!found && (search == null || !search.gaveUp)) {
+      // The second search gets what is left of the node limit.
+      long nodes = search != null ? search.nodes : 0;
+      search = new Search(index, requests, /* withOptional= */ false, nodes);
+      found = search.place(0);
+    }
+    long elapsedNanos = System.nanoTime() - startNanos;
+
+    List<TimeRange> slots = new ArrayList<>();
+    if (found) {
+      for (int i = 0; i < requests.size(); ++i) {
+        slots.add(TimeRange.fromStartDuration(search.starts[i], search.durations[i]));
+      }
+    }
+    return new Schedule(slots, found, optionalFit, search.gaveUp, search.nodes, elapsedNanos);
+  }
+
+  private static boolean hasOptionalAttendees(List<MeetingRequest> requests) {
+    for (MeetingRequest request : requests) {
+      if (!request.getOptionalAttendees().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the attendees a meeting is placed around: its mandatory attendees and, with {@code
+   * withOptional} or without mandatory attendees, its optional attendees. Their busy times limit
+   * where the meeting can go, and no two meetings sharing one of them may overlap.
+   */
+  private static Set<String> involved(MeetingRequest request, boolean withOptional) {
+    Set<String> involved = new HashSet<>(request.getAttendees());
+    if (withOptional || involved.isEmpty()) {
+      involved.addAll(request.getOptionalAttendees());
+    }
+    return involved;
+  }
+
+  /** The state of one backtracking search. */
+  private final class Search {
+    private final int size;
+    private final int[] durations;
+    // The meetings that share an attendee with each meeting, counting optional attendees as
+    // described in involved().
+    private final int[][] neighbors;
+    // The free gaps left for each meeting, as flattened packed intervals.
+    private final long[][] domains;
+    private final int[] starts;
+    private final boolean[] placed;
+    private long nodes;
+    private boolean gaveUp = false;
+
+    /**
+     * Sets up a search.
+     *
+     * @param withOptional whether the domains leave the optional attendees free
+     * @param nodes the number of nodes already spent by an earlier search
+     */
+    Search(EventIndex index, List<MeetingRequest> requests, boolean withOptional, long nodes) {
+      this.nodes = nodes;
+      size = requests.size();
+      durations = new int[size];
+      domains = new long[size][];
+      starts = new int[size];
+      placed = new boolean[size];
+
+      List<Set<String>> attendees = new ArrayList<>();
+      for (int i = 0; i < size; ++i) {
+        MeetingRequest request = requests.get(i);
+        Set<String> involved = involved(request, withOptional);
+        durations[i] = (int) Long.min(Long.max(0, request.getDuration()), Integer.MAX_VALUE);
+        domains[i] = gaps(index.busy(involved));
+        attendees.add(involved);
+      }
+
+      neighbors = new int[size][];
+      for (int i = 0; i < size; ++i) {
+        List<Integer> shared = new ArrayList<>();
+        for (int j = 0; j < size; ++j) {
+          if (j != i && !Collections.disjoint(attendees.get(i), attendees.get(j))) {
+            shared.add(j);
+          }
+        }
+        neighbors[i] = shared.stream().mapToInt(Integer::intValue).toArray();
+      }
+    }
+
+    /** Places the remaining meetings, given that {@code depth} of them are placed already. */
+    boolean place(int depth) {
+      if (depth == size) {
+        return true;
+      }
+
+      // Most constrained meeting first.
+      int meeting = -1;
+      long fewestStarts = Long.MAX_VALUE;
+      for (int i = 0; i < size; ++i) {
+        if (!placed[i]) {
+          long startCount = countStarts(domains[i], durations[i]);
+          if (startCount < fewestStarts) {
+            fewestStarts = startCount;
+            meeting = i;
+          }
+        }
+      }
+      if (fewestStarts == 0) {
+        return false;
+      }
+
+      int duration = durations[meeting];
+      long[][] savedDomains = new long[neighbors[meeting].length][];
+      placed[meeting] = true;
+      for (long gap : domains[meeting]) {
+        int gapStart = PackedIntervals.start(gap);
+        int latestStart = PackedIntervals.end(gap) - duration;
+        for (int start = gapStart; start <= latestStart; start = nextStart(start)) {
+          if (++nodes > maxNodes) {
+            gaveUp = true;
+            placed[meeting] = false;
+            return false;
+          }
+          starts[meeting] = start;
+          if (forwardCheck(meeting, start, start + duration, savedDomains) && place(depth + 1)) {
+            return true;
+          }
+          restore(meeting, savedDomains);
+          if (gaveUp) {
+            placed[meeting] = false;
+            return false;
+          }
+        }
+      }
+      placed[meeting] = false;
+      return false;
+    }
+
+    /** Returns the start tried after {@code start}: the next multiple of the step size. */
+    private int nextStart(int start) {
+      return (start / stepMinutes + 1) * stepMinutes;
+    }
+
+    /** Returns the number of starts that would be tried in a domain. */
+    private long countStarts(long[] domain, int duration) {
+      long count = 0;
+      for (long gap : domain) {
+        int gapStart = PackedIntervals.start(gap);
+        int latestStart = PackedIntervals.end(gap) - duration;
+        if (gapStart <= latestStart) {
+          count += 1 + latestStart / stepMinutes - gapStart / stepMinutes;
+        }
+      }
+      return count;
+    }
+
+    /**
+     * Removes [start, end) from the domains of the unplaced neighbors of {@code meeting}, saving
+     * their old domains. Returns false as soon as a neighbor has no room left.
+     */
+    private boolean forwardCheck(int meeting, int start, int end, long[][] savedDomains) {
+      Arrays.fill(savedDomains, null);
+      int[] shared = neighbors[meeting];
+      for (int i = 0; i < shared.length; ++i) {
+        int neighbor = shared[i];
+        if (placed[neighbor]) {
+          continue;
+        }
+        savedDomains[i] = domains[neighbor];
+        domains[neighbor] = subtract(domains[neighbor], start, end);
+        if (countStarts(domains[neighbor], durations[neighbor]) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /** Undoes {@link #forwardCheck}. */
+    private void restore(int meeting, long[][] savedDomains) {
+      int[] shared = neighbors[meeting];
+      for (int i = 0; i < shared.length; ++i) {
+        if (savedDomains[i] != null) {
+          domains[shared[i]] = savedDomains[i];
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the free gaps between a flattened conflict set's intervals. A gap that runs to the end
+   * of the day ends at {@link TimeRange#END_OF_DAY}, which matches how {@link PackedIntervals#fits}
+   * measures it.
+   */
+  private static long[] gaps(long[] conflicts) {
+    long[] gaps = new long[conflicts.length + 1];
+    int size = 0;
+    int gapStart = TimeRange.START_OF_DAY;
+    for (long conflict : conflicts) {
+      int gapEnd = PackedIntervals.start(conflict);
+      if (gapStart <= gapEnd) {
+        gaps[size++] = PackedIntervals.pack(gapStart, gapEnd);
+      }
+      gapStart = Integer.max(gapStart, PackedIntervals.end(conflict));
+    }
+    if (gapStart <= TimeRange.END_OF_DAY) {
+      gaps[size++] = PackedIntervals.pack(gapStart, TimeRange.END_OF_DAY);
+    }
+    return Arrays.copyOf(gaps, size);
+  }
+
+  /** Returns the gaps of {@code domain} with [start, end) taken out. */
+  private static long[] subtract(long[] domain, int start, int end) {
+    if (start >= end) {
+      return domain;
+    }
+    long[] result = new long[domain.length + 1];
+    int size = 0;
+    for (long gap : domain) {
+      int gapStart = PackedIntervals.start(gap);
+      int gapEnd = PackedIntervals.end(gap);
+      if (end <= gapStart || start >= gapEnd) {
+        result[size++] = gap;
+        continue;
+      }
+      if (gapStart < start) {
+        result[size++] = PackedIntervals.pack(gapStart, start);
+      }
+      if (end < gapEnd) {
+        result[size++] = PackedIntervals.pack(end, gapEnd);
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /** The outcome of scheduling a batch of meetings. */
+  public static final class Schedule {
+    private final List<TimeRange> slots;
+    private final boolean found;
+    private final boolean optionalFit;
+    private final boolean gaveUp;
+    private final long nodes;
+    private final long elapsedNanos;
+
+    Schedule(
+        List<TimeRange> slots,
+        boolean found,
+        boolean optionalFit,
+        boolean gaveUp,
+        long nodes,
+        long elapsedNanos) {
+      this.slots = Collections.unmodifiableList(slots);
+      this.found = found;
+      this.optionalFit = optionalFit;
+      this.gaveUp = gaveUp;
+      this.nodes = nodes;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /** Returns the slot of each meeting in request order, or an empty list if none was found. */
+    public List<TimeRange> getSlots() {
+      return slots;
+    }
+
+    /** Returns whether every meeting was placed. */
+    public boolean isFound() {
+      return found;
+    }
+
+    /**
+     * Returns whether the slots also leave every optional attendee free. False if the batch only
+     * fit without them, or has no optional attendees.
+     */
+    public boolean isOptionalFit() {
+      return optionalFit;
+    }
+
+    /** Returns whether the search stopped at the node limit before it could finish. */
+    public boolean isGaveUp() {
+      return gaveUp;
+    }
+
+    /** Returns the number of search nodes, that is, starts tried. */
+    public long getNodes() {
+      return nodes;
+    }
+
+    /** Returns the time the search took in nanoseconds. */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /** Returns the search throughput in nodes per second. */
+    public double getNodesPerSecond() {
+      return elapsedNanos > 0 ? nodes * 1e9 / elapsedNanos : 0;
+    }
+  }
+}
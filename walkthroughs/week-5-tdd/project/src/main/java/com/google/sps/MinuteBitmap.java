@@ -0,0 +1,132 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bitmap with one bit for each minute of the day, where a set bit means "busy". A day is 1440
+ * minutes, so the whole map fits in 23 longs. Combining the schedules of several people is a word-
+ * wise OR, and free time is found with word-level {@link Long#numberOfTrailingZeros} scans.
+ *
+ * <p>Minutes outside of {@link TimeRange#WHOLE_DAY} are ignored.
+ */
+public final class MinuteBitmap {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+  private static final int WORDS = (MINUTES + 63) / 64;
+
+  private final long[] words = new long[WORDS];
+
+  /** Creates a bitmap where every minute of the day is free. */
+  public MinuteBitmap() {}
+
+  /** Creates a copy of another bitmap. */
+  public MinuteBitmap(MinuteBitmap other) {
+    System.arraycopy(other.words, 0, words, 0, WORDS);
+  }
+
+  /** Marks every minute in {@code range} as busy. */
+  public void setBusy(TimeRange range) {
+    setBusy(range.start(), range.end());
+  }
+
+  /** Marks every minute in [start, end) as busy. */
+  void setBusy(int start, int end) {
+    start = Integer.max(start, 0);
+    end = Integer.min(end, MINUTES);
+    if (start >= end) {
+      return;
+    }
+
+    int startWord = start >>> 6;
+    int endWord = (end - 1) >>> 6;
+    long firstWordMask = -1L << start;
+    long lastWordMask = -1L >>> -end;
+    if (startWord == endWord) {
+      words[startWord] |= firstWordMask & lastWordMask;
+    } else {
+      words[startWord] |= firstWordMask;
+      Arrays.fill(words, startWord + 1, endWord, -1L);
+      words[endWord] |= lastWordMask;
+    }
+  }
+
+  /** Marks every minute that is busy in {@code other} as busy in this bitmap as well. */
+  public void or(MinuteBitmap other) {
+    for (int i = 0; i < WORDS; ++i) {
+      words[i] |= other.words[i];
+    }
+  }
+
+  /** Returns whether the given minute is busy. */
+  public boolean isBusy(int minute) {
+    return minute >= 0 && minute < MINUTES && (words[minute >>> 6] & (1L << minute)) != 0;
+  }
+
+  /** Returns the first busy minute at or after {@code from}, or 1440 if there is none. */
+  int nextBusy(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int wordIndex = from >>> 6;
+    long word = words[wordIndex] & (-1L << from);
+    while (word == 0) {
+      if (++wordIndex == WORDS) {
+        return MINUTES;
+      }
+      word = words[wordIndex];
+    }
+    return Integer.min(MINUTES, (wordIndex << 6) + Long.numberOfTrailingZeros(word));
+  }
+
+  /** Returns the first free minute at or after {@code from}, or 1440 if there is none. */
+  int nextFree(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int wordIndex = from >>> 6;
+    long word = ~words[wordIndex] & (-1L << from);
+    while (word == 0) {
+      if (++wordIndex == WORDS) {
+        return MINUTES;
+      }
+      word = ~words[wordIndex];
+    }
+    return Integer.min(MINUTES, (wordIndex << 6) + Long.numberOfTrailingZeros(word));
+  }
+
+  /**
+   * Returns the ordered runs of free minutes that are at least minDuration long. Runs reaching the
+   * end of the day are measured the same way as in {@link FindMeetingQuery}.
+   */
+  public List<TimeRange> freeRuns(long minDuration) {
+    List<TimeRange> runs = new ArrayList<TimeRange>();
+    int start = nextFree(0);
+    while (start < MINUTES) {
+      int end = nextBusy(start);
+      if (end == MINUTES) {
+        if (TimeRange.END_OF_DAY - start >= minDuration) {
+          runs.add(TimeRange.fromStartEnd(start, TimeRange.END_OF_DAY, true));
+        }
+      } else if (end - start >= minDuration) {
+        runs.add(TimeRange.fromStartEnd(start, end, false));
+      }
+      start = nextFree(end);
+    }
+    return runs;
+  }
+}
@@ -0,0 +1,175 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * A calendar spanning many days, for questions such as "the first three slots this week". Events
+ * are given in epoch minutes and stored in one bucket per day; an event running past midnight is
+ * split between the days it touches. Recurring events are kept as definitions.
+ *
+ * <p>Each day is answered exactly as {@link EventIndex#query} would answer it for that day's
+ * events, including the occurrences of recurring events on that day, so a slot never runs past
+ * midnight. A day's index is built the first time the day is searched and kept afterwards.
+ *
+ * <p>{@link #findSlots} searches the days of a window in batches of consecutive days, one batch at
+ * a time, with the days of a batch searched in parallel. It stops after the first batch that
+ * completes the requested number of slots, so a search for the next free hour rarely looks beyond
+ * the first few days of a month.
+ *
+ * <p>Instances are immutable and thread-safe.
+ */
+public final class MultiDayCalendar {
+  private static final EventIndex NO_EVENTS = new EventIndex(Collections.<Event>emptyList());
+
+  private final Map<Long, List<Event>> eventsByDay;
+  private final List<RecurringEvent> recurringEvents;
+  private final ConcurrentMap<Long, EventIndex> indexByDay = new ConcurrentHashMap<>();
+
+  private MultiDayCalendar(Builder builder) {
+    this.eventsByDay = new HashMap<>(builder.eventsByDay);
+    this.recurringEvents = new ArrayList<>(builder.recurringEvents);
+  }
+
+  /**
+   * Finds the earliest slots where a meeting request's attendees can meet inside a window.
+   *
+   * @param request the meeting request
+   * @param window the part of the calendar to search
+   * @param maxSlots the maximum number of slots to return. Must be positive.
+   * @return up to maxSlots free ranges, in time order, each inside one day and at least as long as
+   *     the meeting
+   */
+  public List<EpochTimeRange> findSlots(
+      MeetingRequest request, EpochTimeRange window, int maxSlots) {
+    if (maxSlots <= 0) {
+      throw new IllegalArgumentException("maxSlots must be positive");
+    }
+
+    List<EpochTimeRange> slots = new ArrayList<>();
+    if (window.duration() == 0) {
+      return slots;
+    }
+    long firstDay = EpochTimeRange.dayOf(window.start());
+    long lastDay = EpochTimeRange.dayOf(window.end() - 1);
+    int batchSize = ForkJoinPool.getCommonPoolParallelism();
+    for (long batchStart = firstDay; batchStart <= lastDay; batchStart += batchSize) {
+      long batchEnd = Long.min(lastDay, batchStart + batchSize - 1);
+      List<List<EpochTimeRange>> days =
+          LongStream.rangeClosed(batchStart, batchEnd)
+              .parallel()
+              .mapToObj(day -> slotsOnDay(day, request, window))
+              .collect(Collectors.toList());
+      for (List<EpochTimeRange> daySlots : days) {
+        for (EpochTimeRange slot : daySlots) {
+          slots.add(slot);
+          if (slots.size() == maxSlots) {
+            return slots;
+          }
+        }
+      }
+    }
+    return slots;
+  }
+
+  /** Returns the free ranges of one day, cut to the window. */
+  private List<EpochTimeRange> slotsOnDay(long day, MeetingRequest request, EpochTimeRange window) {
+    List<EpochTimeRange> slots = new ArrayList<>();
+    for (TimeRange free : index(day).query(request)) {
+      EpochTimeRange slot = EpochTimeRange.onDay(day, free);
+      long start = Long.max(slot.start(), window.start());
+      long end = Long.min(slot.end(), window.end());
+      if (start == slot.start() && end == slot.end()) {
+        slots.add(slot);
+      } else if (end - start >= request.getDuration()) {
+        slots.add(EpochTimeRange.fromStartEnd(start, end));
+      }
+    }
+    return slots;
+  }
+
+  /** Returns the index of one day's events, building it on first use. */
+  private EventIndex index(long day) {
+    EventIndex index = indexByDay.get(day);
+    if (index != null) {
+      return index;
+    }
+    List<Event> events = new ArrayList<>(eventsByDay.getOrDefault(day, Collections.emptyList()));
+    for (RecurringEvent event : recurringEvents) {
+      if (day >= Integer.MIN_VALUE && day <= Integer.MAX_VALUE && event.occursOn((int) day)) {
+        events.add(event.on((int) day));
+      }
+    }
+    if (events.isEmpty()) {
+      return NO_EVENTS;
+    }
+    return indexByDay.computeIfAbsent(day, key -> new EventIndex(events));
+  }
+
+  /** Collects the events of a {@link MultiDayCalendar}. Builders are not thread-safe. */
+  public static final class Builder {
+    private final Map<Long, List<Event>> eventsByDay = new HashMap<>();
+    private final List<RecurringEvent> recurringEvents = new ArrayList<>();
+
+    /**
+     * Adds an event, splitting it at every midnight it spans.
+     *
+     * @param title The human-readable name for the event. Must be non-null.
+     * @param when The time when the event takes place. Must be non-null.
+     * @param attendees The collection of people attending the event. Must be non-null.
+     */
+    public Builder addEvent(String title, EpochTimeRange when, Collection<String> attendees) {
+      if (when == null) {
+        throw new IllegalArgumentException("when cannot be null");
+      }
+      long day = EpochTimeRange.dayOf(when.start());
+      long start = when.start();
+      do {
+        long dayStart = EpochTimeRange.startOfDay(day);
+        long end = Long.min(when.end(), dayStart + EpochTimeRange.MINUTES_PER_DAY);
+        TimeRange piece =
+            TimeRange.fromStartEnd((int) (start - dayStart), (int) (end - dayStart), false);
+        eventsByDay
+            .computeIfAbsent(day, key -> new ArrayList<>())
+            .add(new Event(title, piece, attendees));
+        start = end;
+        ++day;
+      } while (start < when.end());
+      return this;
+    }
+
+    /** Adds a recurring event. Its days are counted in days since the epoch. */
+    public Builder addRecurringEvent(RecurringEvent event) {
+      recurringEvents.add(event);
+      return this;
+    }
+
+    /** Returns a calendar holding the events added so far. */
+    public MultiDayCalendar build() {
+      return new MultiDayCalendar(this);
+    }
+  }
+}
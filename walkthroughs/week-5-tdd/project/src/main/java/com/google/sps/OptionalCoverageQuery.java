@@ -0,0 +1,241 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the meeting times where every mandatory attendee and as many optional attendees as possible
+ * can attend. Where {@link FindMeetingQuery} is all-or-nothing for optional attendees, this query
+ * returns the times that leave out the fewest of them.
+ *
+ * <p>Algorithm design approach:
+ *
+ * <p>- An optional attendee misses a meeting starting at p if one of their busy intervals [s, e)
+ * overlaps [p, p + d), that is, if s - d < p < e. Each attendee's busy intervals are turned into
+ * these ranges of "bad" start times and merged, so an attendee is counted at most once per start.
+ *
+ * <p>- Sweeping over the sorted start and end points of those ranges gives, for every start time in
+ * a gap between the mandatory attendees' conflicts, the number of optional attendees that would
+ * miss the meeting. The count only changes at those points, so the sweep is a sliding window over
+ * the optional attendees' intervals rather than a walk over every minute.
+ *
+ * <p>- A first sweep finds the fewest optional attendees any meeting has to leave out. A second
+ * sweep joins the consecutive start times that achieve it, and returns each run of starts [a, b] as
+ * the range [a, b + d), inside which every meeting of the requested duration is a best choice.
+ * Ranges are ordered by start time. Two ranges may overlap when the meetings between them would
+ * leave out more optional attendees.
+ *
+ * <p>Events of zero duration are ignored for optional attendees. Runtime O(M + E log E), where M =
+ * the number of attendees and E = the number of their busy intervals.
+ */
+public final class OptionalCoverageQuery {
+
+  /**
+   * Finds the times where all mandatory attendees and the largest possible number of optional
+   * attendees can meet.
+   *
+   * @param index the index of all scheduled events
+   * @param request the meeting request
+   * @return the TimeRanges ordered by start time, or an empty collection if no valid times exist or
+   *     if there are no mandatory attendees and no optional attendee can attend.
+   */
+  public Collection<TimeRange> query(EventIndex index, MeetingRequest request) {
+    long[] conflicts = index.busy(request.getAttendees());
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Arrays.asList();
+    }
+    int duration = (int) request.getDuration();
+    // A meeting of no duration still misses the attendees busy at its start.
+    int reach = Integer.max(duration, 1);
+
+    // Collect every optional attendee's ranges of bad start times, merging the ranges of one
+    // attendee so that they are counted once however many of their events a meeting overlaps.
+    List<long[]> optionalBusy = new ArrayList<>();
+    int intervalCount = 0;
+    for (String attendee : request.getOptionalAttendees()) {
+      long[] busy = index.busy(Collections.singleton(attendee));
+      optionalBusy.add(busy);
+      intervalCount += busy.length;
+    }
+    int[] starts = new int[intervalCount];
+    int[] ends = new int[intervalCount];
+    int size = 0;
+    for (long[] busy : optionalBusy) {
+      int runStart = 0, runEnd = 0;
+      boolean open = false;
+      for (long interval : busy) {
+        int start = PackedIntervals.start(interval);
+        int end = PackedIntervals.end(interval);
+        if (start >= end) {
+          continue;
+        }
+        start -= reach - 1;
+        if (open && start <= runEnd) {
+          runEnd = Integer.max(runEnd, end);
+          continue;
+        }
+        if (open) {
+          starts[size] = runStart;
+          ends[size++] = runEnd;
+        }
+        open = true;
+        runStart = start;
+        runEnd = end;
+      }
+      if (open) {
+        starts[size] = runStart;
+        ends[size++] = runEnd;
+      }
+    }
+    Arrays.sort(starts, 0, size);
+    Arrays.sort(ends, 0, size);
+
+    Sweep sweep = new Sweep(conflicts, starts, ends, size, duration);
+    int fewestBusy = sweep.run(Integer.MAX_VALUE, null);
+    if (fewestBusy == Integer.MAX_VALUE) {
+      return Arrays.asList();
+    }
+    // Edge case -- a meeting without mandatory attendees that no optional attendee can attend.
+    if (request.getAttendees().isEmpty()
+        && fewestBusy == request.getOptionalAttendees().size()
+        && fewestBusy > 0) {
+      return Arrays.asList();
+    }
+
+    List<TimeRange> validTimes = new ArrayList<TimeRange>();
+    sweep.run(fewestBusy, validTimes);
+    return validTimes;
+  }
+
+  /** One pass over the start and end points of the optional attendees' bad start times. */
+  private static final class Sweep {
+    private final long[] conflicts;
+    private final int[] starts;
+    private final int[] ends;
+    private final int size;
+    private final int duration;
+
+    // The number of start and end points at or before the current start time.
+    private int startIndex;
+    private int endIndex;
+
+    Sweep(long[] conflicts, int[] starts, int[] ends, int size, int duration) {
+      this.conflicts = conflicts;
+      this.starts = starts;
+      this.ends = ends;
+      this.size = size;
+      this.duration = duration;
+    }
+
+    /**
+     * Sweeps over the whole day. If {@code validTimes} is null, returns the fewest busy optional
+     * attendees of any meeting, or Integer.MAX_VALUE if no meeting fits. Otherwise adds the ranges
+     * covered by meetings where exactly {@code maxBusy} optional attendees are busy.
+     */
+    int run(int maxBusy, List<TimeRange> validTimes) {
+      startIndex = 0;
+      endIndex = 0;
+      int fewestBusy = Integer.MAX_VALUE;
+      int gapStart = TimeRange.START_OF_DAY;
+      for (int i = 0; i <= conflicts.length; ++i) {
+        boolean lastGap = i == conflicts.length;
+        int gapEnd = lastGap ? TimeRange.WHOLE_DAY.end() : PackedIntervals.start(conflicts[i]);
+        // Gaps running to the end of the day are measured against END_OF_DAY, as in
+        // PackedIntervals.validTimes.
+        int lastStart = (lastGap ? TimeRange.END_OF_DAY : gapEnd) - duration;
+        if (gapStart <= lastStart) {
+          fewestBusy =
+              Integer.min(fewestBusy, sweepGap(gapStart, lastStart, lastGap, maxBusy, validTimes));
+        }
+        if (!lastGap) {
+          gapStart = Integer.max(gapStart, PackedIntervals.end(conflicts[i]));
+        }
+      }
+      return fewestBusy;
+    }
+
+    /**
+     * Sweeps over the start times [firstStart, lastStart] of one gap between mandatory conflicts.
+     */
+    private int sweepGap(
+        int firstStart, int lastStart, boolean lastGap, int maxBusy, List<TimeRange> validTimes) {
+      int fewestBusy = Integer.MAX_VALUE;
+      // The first start of the current run of best starts, or -1 if there is none.
+      int runStart = -1;
+      int point = firstStart;
+      while (point <= lastStart) {
+        while (startIndex < size && starts[startIndex] <= point) {
+          ++startIndex;
+        }
+        while (endIndex < size && ends[endIndex] <= point) {
+          ++endIndex;
+        }
+        int busy = startIndex - endIndex;
+        // The count stays the same until the next start or end point.
+        int next = lastStart + 1;
+        if (startIndex < size) {
+          next = Integer.min(next, starts[startIndex]);
+        }
+        if (endIndex < size) {
+          next = Integer.min(next, ends[endIndex]);
+        }
+
+        fewestBusy = Integer.min(fewestBusy, busy);
+        if (validTimes != null) {
+          if (busy == maxBusy && runStart < 0) {
+            runStart = point;
+          } else if (busy != maxBusy && runStart >= 0) {
+            validTimes.add(TimeRange.fromStartEnd(runStart, point - 1 + duration, false));
+            runStart = -1;
+          }
+        }
+        point = next;
+      }
+      if (runStart >= 0) {
+        if (lastGap && reachesEndOfDay(lastStart, maxBusy)) {
+          validTimes.add(TimeRange.fromStartEnd(runStart, TimeRange.END_OF_DAY, true));
+        } else {
+          validTimes.add(TimeRange.fromStartEnd(runStart, lastStart + duration, false));
+        }
+      }
+      return fewestBusy;
+    }
+
+    /**
+     * Returns whether a meeting starting at {@code lastStart} can be stretched over the day's last
+     * minute without another optional attendee missing it, in which case the range is reported up
+     * to the end of the day like the final gap of {@link FindMeetingQuery}.
+     */
+    private boolean reachesEndOfDay(int lastStart, int busy) {
+      // Stretching the meeting by a minute moves the start of every bad range back by one. One
+      // attendee's ranges are at least a minute apart, so they still do not overlap.
+      int stretchedBusy = 0;
+      for (int i = 0; i < size; ++i) {
+        if (starts[i] - 1 <= lastStart) {
+          ++stretchedBusy;
+        }
+        if (ends[i] <= lastStart) {
+          --stretchedBusy;
+        }
+      }
+      return stretchedBusy == busy;
+    }
+  }
+}
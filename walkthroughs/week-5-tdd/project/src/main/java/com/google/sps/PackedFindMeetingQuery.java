@@ -0,0 +1,140 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An allocation-light implementation of {@link FindMeetingQuery}. Conflicts are collected as packed
+ * {@code long} intervals (see {@link PackedIntervals}), sorted with a primitive sort and merged in
+ * place, so no boxed keys or intermediate {@code TimeRange} objects are created. Attendees are
+ * compared by their interned IDs. Only the final answer is materialized.
+ *
+ * <p>The answers are identical to {@link FindMeetingQuery#query}, and the runtime is the same O(M +
+ * E log E), where M = the number of mandatory attendees and E = the number of events and each of
+ * their attendees.
+ */
+public final class PackedFindMeetingQuery {
+
+  /**
+   * Finds all time intervals where a meeting request's attendees can meet. See {@link
+   * FindMeetingQuery#query} for the handling of optional attendees.
+   *
+   * @param events the collection of all scheduled events
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    return query(events, Collections.<RecurringEvent>emptyList(), 0, request);
+  }
+
+  /**
+   * Finds all time intervals on one day where a meeting request's attendees can meet, given the
+   * one-off events of that day and a set of recurring events. A recurring event only adds a
+   * conflict if it occurs on that day; no {@code Event} objects are created for it.
+   *
+   * @param events the collection of all one-off events scheduled on {@code day}
+   * @param recurringEvents the collection of all recurring events
+   * @param day the day of the meeting
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> query(
+      Collection<Event> events,
+      Collection<RecurringEvent> recurringEvents,
+      int day,
+      MeetingRequest request) {
+    // Events are interned as they are visited, and the request's names are looked up again
+    // whenever that adds names, so the request's names are never interned themselves.
+    AttendeeIds dictionary = AttendeeIds.current();
+    AttendeeSet.Lookup requestedAttendees =
+        new AttendeeSet.Lookup(request.getAttendees(), dictionary);
+    AttendeeSet.Lookup optionalAttendees =
+        new AttendeeSet.Lookup(request.getOptionalAttendees(), dictionary);
+
+    int capacity = events.size() + recurringEvents.size();
+    long[] conflicts = new long[capacity];
+    long[] optionalConflicts = new long[capacity];
+    int conflictCount = 0;
+    int optionalConflictCount = 0;
+    for (Event event : events) {
+      AttendeeSet attendees = event.getAttendeeSet(dictionary);
+      if (attendees.intersects(requestedAttendees.get())) {
+        conflicts[conflictCount++] = PackedIntervals.pack(event.getWhen());
+      }
+      if (attendees.intersects(optionalAttendees.get())) {
+        optionalConflicts[optionalConflictCount++] = PackedIntervals.pack(event.getWhen());
+      }
+    }
+    for (RecurringEvent event : recurringEvents) {
+      AttendeeSet attendees = event.getAttendeeSet(dictionary);
+      boolean requested = attendees.intersects(requestedAttendees.get());
+      boolean optional = attendees.intersects(optionalAttendees.get());
+      // Only check the calendar for the events that matter to this request.
+      if ((requested || optional) && event.occursOn(day)) {
+        if (requested) {
+          conflicts[conflictCount++] = PackedIntervals.pack(event.getWhen());
+        }
+        if (optional) {
+          optionalConflicts[optionalConflictCount++] = PackedIntervals.pack(event.getWhen());
+        }
+      }
+    }
+
+    return validTimes(conflicts, conflictCount, optionalConflicts, optionalConflictCount, request);
+  }
+
+  /**
+   * Answers a meeting request from the unsorted, raw conflicts of its mandatory and optional
+   * attendees. Sorts and flattens both arrays in place.
+   *
+   * @param conflicts packed times when some mandatory attendee is busy
+   * @param conflictCount the number of intervals at the front of {@code conflicts}
+   * @param optionalConflicts packed times when some optional attendee is busy
+   * @param optionalConflictCount the number of intervals at the front of {@code optionalConflicts}
+   * @param request the meeting request
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  static List<TimeRange> validTimes(
+      long[] conflicts,
+      int conflictCount,
+      long[] optionalConflicts,
+      int optionalConflictCount,
+      MeetingRequest request) {
+    conflictCount = PackedIntervals.flatten(conflicts, conflictCount);
+    optionalConflictCount = PackedIntervals.flatten(optionalConflicts, optionalConflictCount);
+    long[] combinedConflicts = new long[conflictCount + optionalConflictCount];
+    int combinedConflictCount =
+        PackedIntervals.union(
+            conflicts, conflictCount, optionalConflicts, optionalConflictCount, combinedConflicts);
+
+    List<TimeRange> combinedValidTimes =
+        PackedIntervals.validTimes(combinedConflicts, combinedConflictCount, request.getDuration());
+    if (!combinedValidTimes.isEmpty()) {
+      return combinedValidTimes;
+    }
+    // Same edge case as FindMeetingQuery: optional attendees only, and none of them can meet.
+    if (request.getAttendees().isEmpty()) {
+      return Arrays.asList();
+    }
+    return PackedIntervals.validTimes(conflicts, conflictCount, request.getDuration());
+  }
+}
@@ -0,0 +1,265 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Primitive helpers for conflict sets stored as packed {@code long} values, where the high 32 bits
+ * hold the start of an interval and the low 32 bits hold its exclusive end. Sorting a packed array
+ * with {@link Arrays#sort(long[], int, int)} orders the intervals by start time without boxing.
+ *
+ * <p>All operations follow the same rules as {@link FindMeetingQuery}, so an engine built on these
+ * helpers returns exactly the same answers.
+ */
+final class PackedIntervals {
+  private PackedIntervals() {
+    // Disallow instances.
+  }
+
+  /** Packs the interval [start, end) into a single long. */
+  static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  /** Packs a {@code TimeRange} into a single long. */
+  static long pack(TimeRange range) {
+    return pack(range.start(), range.end());
+  }
+
+  /** Returns the start of a packed interval. */
+  static int start(long interval) {
+    return (int) (interval >> 32);
+  }
+
+  /** Returns the exclusive end of a packed interval. */
+  static int end(long interval) {
+    return (int) interval;
+  }
+
+  /**
+   * Sorts the first {@code size} intervals and flattens them in place, so that none of the
+   * remaining intervals overlap. Runtime O(n log n).
+   *
+   * @return the number of intervals left at the front of {@code intervals}
+   */
+  static int flatten(long[] intervals, int size) {
+    Arrays.sort(intervals, 0, size);
+    return flattenSorted(intervals, size);
+  }
+
+  /**
+   * Flattens the first {@code size} intervals, which must already be ordered by start time, in
+   * place. Of the intervals sharing a start time only the longest is kept, and an interval is
+   * folded into the previous one only if it starts strictly before the previous one ends. Runtime
+   * O(n).
+   *
+   * @return the number of intervals left at the front of {@code intervals}
+   */
+  static int flattenSorted(long[] intervals, int size) {
+    if (size == 0) {
+      return 0;
+    }
+    int flatSize = 0;
+    int startTime = start(intervals[0]);
+    int endTime = end(intervals[0]);
+    for (int i = 1; i < size; ++i) {
+      int start = start(intervals[i]);
+      int end = end(intervals[i]);
+      if (start == startTime || start < endTime) {
+        endTime = Integer.max(end, endTime);
+      } else {
+        intervals[flatSize++] = pack(startTime, endTime);
+        startTime = start;
+        endTime = end;
+      }
+    }
+    intervals[flatSize++] = pack(startTime, endTime);
+    return flatSize;
+  }
+
+  /**
+   * Merges {@code count} lists, each already ordered by start time, into {@code out}, which must
+   * have room for all of them. Uses a binary heap of list heads, so the runtime is O(n log k) for n
+   * intervals spread across k lists.
+   *
+   * @return the number of intervals written to {@code out}
+   */
+  static int mergeSortedLists(long[][] lists, int count, long[] out) {
+    int[] heap = new int[count];
+    int[] positions = new int[count];
+    int heapSize = 0;
+    for (int list = 0; list < count; ++list) {
+      if (lists[list].length > 0) {
+        heap[heapSize++] = list;
+      }
+    }
+    for (int i = heapSize / 2 - 1; i >= 0; --i) {
+      siftDown(heap, heapSize, i, lists, positions);
+    }
+
+    int outSize = 0;
+    while (heapSize > 0) {
+      int list = heap[0];
+      out[outSize++] = lists[list][positions[list]++];
+      if (positions[list] == lists[list].length) {
+        heap[0] = heap[--heapSize];
+      }
+      siftDown(heap, heapSize, 0, lists, positions);
+    }
+    return outSize;
+  }
+
+  /**
+   * Returns the flattened union of {@code count} flattened lists. A single list is returned as it
+   * is, so the result must not be modified. Runtime O(n log k) for n intervals spread across k
+   * lists.
+   */
+  static long[] unionAll(long[][] lists, int count) {
+    if (count == 0) {
+      return new long[0];
+    }
+    if (count == 1) {
+      // A single list is already flattened.
+      return lists[0];
+    }
+
+    int intervalCount = 0;
+    for (int list = 0; list < count; ++list) {
+      intervalCount += lists[list].length;
+    }
+    long[] merged = new long[intervalCount];
+    int size = mergeSortedLists(lists, count, merged);
+    size = flattenSorted(merged, size);
+    return size == merged.length ? merged : Arrays.copyOf(merged, size);
+  }
+
+  /** Restores the heap property below {@code index} in a heap of list heads. */
+  static void siftDown(int[] heap, int heapSize, int index, long[][] lists, int[] positions) {
+    while (true) {
+      int smallest = index;
+      int left = 2 * index + 1;
+      int right = left + 1;
+      if (left < heapSize
+          && head(heap[left], lists, positions) < head(heap[smallest], lists, positions)) {
+        smallest = left;
+      }
+      if (right < heapSize
+          && head(heap[right], lists, positions) < head(heap[smallest], lists, positions)) {
+        smallest = right;
+      }
+      if (smallest == index) {
+        return;
+      }
+      int swap = heap[index];
+      heap[index] = heap[smallest];
+      heap[smallest] = swap;
+      index = smallest;
+    }
+  }
+
+  private static long head(int list, long[][] lists, int[] positions) {
+    return lists[list][positions[list]];
+  }
+
+  /**
+   * Merges two flattened conflict sets into {@code out}, which must have room for both. Mirrors
+   * {@link FindMeetingQuery#combineConflictSets}, using the same rules as {@link #flattenSorted}.
+   * Runtime O(a + b).
+   *
+   * @return the number of intervals written to {@code out}
+   */
+  static int union(long[] setA, int sizeA, long[] setB, int sizeB, long[] out) {
+    int indexA = 0, indexB = 0, outSize = 0;
+    int startTime = 0, endTime = 0;
+    boolean open = false;
+
+    while (indexA < sizeA || indexB < sizeB) {
+      long rawRange;
+      if (indexB >= sizeB || (indexA < sizeA && start(setA[indexA]) <= start(setB[indexB]))) {
+        rawRange = setA[indexA++];
+      } else {
+        rawRange = setB[indexB++];
+      }
+
+      if (!open) {
+        open = true;
+        startTime = start(rawRange);
+        endTime = end(rawRange);
+      } else if (start(rawRange) == startTime || start(rawRange) < endTime) {
+        endTime = Integer.max(end(rawRange), endTime);
+      } else {
+        out[outSize++] = pack(startTime, endTime);
+        startTime = start(rawRange);
+        endTime = end(rawRange);
+      }
+    }
+
+    if (open) {
+      out[outSize++] = pack(startTime, endTime);
+    }
+    return outSize;
+  }
+
+  /**
+   * Returns whether the gap [start, end) is long enough to hold a meeting of minDuration. Gaps
+   * running to the end of the day are measured against {@link TimeRange#END_OF_DAY}, exactly as the
+   * final gap in {@link #validTimes} is.
+   */
+  static boolean fits(int start, int end, long minDuration) {
+    if (end >= TimeRange.WHOLE_DAY.end()) {
+      return TimeRange.END_OF_DAY - start >= minDuration;
+    }
+    return (long) (end - start) >= minDuration;
+  }
+
+  /** Returns whether {@link #validTimes} would return any gaps for the same arguments. */
+  static boolean hasValidTime(long[] conflicts, int size, long minDuration) {
+    int startTime = TimeRange.START_OF_DAY;
+    for (int i = 0; i < size; ++i) {
+      if ((long) (start(conflicts[i]) - startTime) >= minDuration) {
+        return true;
+      }
+      startTime = end(conflicts[i]);
+    }
+    return TimeRange.END_OF_DAY - startTime >= minDuration;
+  }
+
+  /**
+   * Converts a flattened conflict set into the ordered list of gaps at least minDuration long. This
+   * is the only step that allocates {@code TimeRange} objects. Runtime O(n).
+   */
+  static List<TimeRange> validTimes(long[] conflicts, int size, long minDuration) {
+    List<TimeRange> validTimes = new ArrayList<TimeRange>();
+    int startTime = TimeRange.START_OF_DAY;
+
+    for (int i = 0; i < size; ++i) {
+      int conflictStart = start(conflicts[i]);
+      if ((long) (conflictStart - startTime) >= minDuration) {
+        validTimes.add(TimeRange.fromStartEnd(startTime, conflictStart, false));
+      }
+      // Skip over entire conflict region.
+      startTime = end(conflicts[i]);
+    }
+
+    // Final element
+    if (TimeRange.END_OF_DAY - startTime >= minDuration) {
+      validTimes.add(TimeRange.fromStartEnd(startTime, TimeRange.END_OF_DAY, true));
+    }
+    return validTimes;
+  }
+}
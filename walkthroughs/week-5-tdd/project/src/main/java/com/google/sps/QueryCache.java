@@ -0,0 +1,247 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A bounded, least-recently-used cache of meeting query answers. Requests with the same mandatory
+ * attendees, optional attendees and duration share an entry, whatever the order of their names.
+ *
+ * <p>Every attendee has a version that {@link #invalidate} increases when one of their events
+ * changes. Each entry records the versions of its attendees when it was computed, so a change only
+ * invalidates the entries of the people it involves. {@link #invalidateAll} drops every entry at
+ * once by increasing the cache's epoch, and forgets the versions, which only entries of earlier
+ * epochs could refer to. So that the versions of a long-running cache stay bounded, invalidating
+ * more than a set number of distinct attendees within one epoch invalidates everything.
+ *
+ * <p>Instances are thread-safe. Answers are computed outside of the cache's lock, so a slow query
+ * never blocks others; a query that races with an invalidation is stored with the versions it saw
+ * beforehand, and therefore never served.
+ */
+public final class QueryCache {
+  /** The default number of attendees whose versions are tracked within one epoch. */
+  static final int DEFAULT_MAX_VERSIONS = 1 << 16;
+
+  private final int capacity;
+  private final int maxVersions;
+  private final Map<Key, CachedAnswer> entries;
+  // The version of each attendee whose events have changed in the current epoch. Missing attendees
+  // are at version 0. Versions are taken from the version counter, so none is ever handed out
+  // twice, even after the map is cleared.
+  private final ConcurrentMap<String, Long> versions = new ConcurrentHashMap<>();
+  private final AtomicLong epoch = new AtomicLong();
+  // The number of invalidations of any kind.
+  private final AtomicLong version = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity the maximum number of answers kept. Must be positive.
+   */
+  public QueryCache(int capacity) {
+    this(capacity, DEFAULT_MAX_VERSIONS);
+  }
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity the maximum number of answers kept. Must be positive.
+   * @param maxVersions the number of distinct attendees that can be invalidated before the cache
+   *     invalidates everything instead. Must be positive.
+   */
+  QueryCache(int capacity, int maxVersions) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    if (maxVersions <= 0) {
+      throw new IllegalArgumentException("maxVersions must be positive");
+    }
+    this.capacity = capacity;
+    this.maxVersions = maxVersions;
+    this.entries =
+        new LinkedHashMap<Key, CachedAnswer>(16, 0.75f, /* accessOrder= */ true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, CachedAnswer> eldest) {
+            return size() > QueryCache.this.capacity;
+          }
+        };
+  }
+
+  /**
+   * Returns the cached answer to a request, or computes and caches it.
+   *
+   * @param request the meeting request
+   * @param engine answers requests that are not in the cache
+   * @return a read-only, ordered collection of TimeRanges
+   */
+  public Collection<TimeRange> query(
+      MeetingRequest request, Function<MeetingRequest, Collection<TimeRange>> engine) {
+    Key key = new Key(request);
+    long currentEpoch = epoch.get();
+    long[] currentVersions = versions(key);
+
+    CachedAnswer entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    if (entry != null
+        && entry.epoch == currentEpoch
+        && Arrays.equals(entry.versions, currentVersions)) {
+      hits.incrementAndGet();
+      return entry.answer;
+    }
+
+    misses.incrementAndGet();
+    List<TimeRange> answer =
+        Collections.unmodifiableList(new ArrayList<TimeRange>(engine.apply(request)));
+    synchronized (entries) {
+      entries.put(key, new CachedAnswer(currentEpoch, currentVersions, answer));
+    }
+    return answer;
+  }
+
+  /**
+   * Invalidates the cached answers of all requests involving any of {@code attendees}. Call this
+   * after the change is visible to the engine.
+   */
+  public void invalidate(Collection<String> attendees) {
+    long next = version.incrementAndGet();
+    for (String attendee : attendees) {
+      versions.put(attendee, next);
+    }
+    if (versions.size() > maxVersions) {
+      invalidateAll();
+    }
+  }
+
+  /** Invalidates every cached answer. */
+  public void invalidateAll() {
+    // Forget the versions before starting the new epoch: a query that sees the new epoch then only
+    // sees versions from after the clear, and entries of the old epoch are never served anyway.
+    versions.clear();
+    epoch.incrementAndGet();
+    version.incrementAndGet();
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /** Returns the current versions of the attendees of {@code key}, in key order. */
+  private long[] versions(Key key) {
+    long[] result = new long[key.attendees.length + key.optionalAttendees.length];
+    int i = 0;
+    for (String attendee : key.attendees) {
+      result[i++] = versions.getOrDefault(attendee, 0L);
+    }
+    for (String attendee : key.optionalAttendees) {
+      result[i++] = versions.getOrDefault(attendee, 0L);
+    }
+    return result;
+  }
+
+  /** Returns the maximum number of answers kept. */
+  public int capacity() {
+    return capacity;
+  }
+
+  /** Returns the number of answers currently kept, including ones that are no longer valid. */
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /** Returns the number of attendees whose versions are tracked in the current epoch. */
+  int trackedAttendees() {
+    return versions.size();
+  }
+
+  /** Returns the number of requests answered from the cache. */
+  public long hits() {
+    return hits.get();
+  }
+
+  /** Returns the number of requests that had to be computed. */
+  public long misses() {
+    return misses.get();
+  }
+
+  /** Returns the number of invalidations so far, which identifies the state of the calendar. */
+  public long version() {
+    return version.get();
+  }
+
+  /** The canonical form of a request: sorted attendee lists and the duration. */
+  private static final class Key {
+    private final String[] attendees;
+    private final String[] optionalAttendees;
+    private final long duration;
+    private final int hashCode;
+
+    Key(MeetingRequest request) {
+      this.attendees = new TreeSet<String>(request.getAttendees()).toArray(new String[0]);
+      this.optionalAttendees =
+          new TreeSet<String>(request.getOptionalAttendees()).toArray(new String[0]);
+      this.duration = request.getDuration();
+      this.hashCode =
+          31 * (31 * Arrays.hashCode(attendees) + Arrays.hashCode(optionalAttendees))
+              + Long.hashCode(duration);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return duration == key.duration
+          && Arrays.equals(attendees, key.attendees)
+          && Arrays.equals(optionalAttendees, key.optionalAttendees);
+    }
+  }
+
+  /** A cached answer and the versions it was computed at. */
+  private static final class CachedAnswer {
+    private final long epoch;
+    private final long[] versions;
+    private final List<TimeRange> answer;
+
+    CachedAnswer(long epoch, long[] versions, List<TimeRange> answer) {
+      this.epoch = epoch;
+      this.versions = versions;
+      this.answer = answer;
+    }
+  }
+}
@@ -0,0 +1,240 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide statistics about the phases of a query, recorded by {@link FindMeetingQuery#query}
+ * and by the {@link EventIndex} path that the servlets use. Each {@link Metric} is kept as a
+ * lock-free histogram with power-of-two buckets, so recording a value is a few atomic additions and
+ * never blocks.
+ *
+ * <p>An {@link EventIndex} query has no events to scan: it records the time spent merging busy
+ * lists, combining conflict sets and scanning for gaps, but no event or interval counts.
+ *
+ * <p>Recording is off unless enabled with {@link #setEnabled} or the {@value #ENABLED_PROPERTY}
+ * system property. While it is off, instrumented code only reads one volatile flag per phase and
+ * does not read the clock.
+ */
+public final class QueryMetrics {
+  /** The system property that turns recording on at startup. */
+  public static final String ENABLED_PROPERTY = "calendar.queryMetrics";
+
+  /** The values recorded for each query. */
+  public enum Metric {
+    /** Time spent finding the events of the requested attendees, in nanoseconds. */
+    GENERATE_RAW_CONFLICT_SET_NANOS,
+    /**
+     * Time spent merging the pre-merged busy lists of the requested attendees in an {@link
+     * EventIndex}, in nanoseconds.
+     */
+    MERGE_BUSY_LISTS_NANOS,
+    /** Time spent flattening the raw conflict sets, in nanoseconds. */
+    CLEAN_CONFLICT_SET_NANOS,
+    /** Time spent combining the mandatory and optional conflict sets, in nanoseconds. */
+    COMBINE_CONFLICT_SETS_NANOS,
+    /** Time spent turning conflict sets into valid times, in nanoseconds. */
+    GET_VALID_TIMES_NANOS,
+    /** The number of events looked at. */
+    EVENTS_SCANNED,
+    /** The number of events involving a requested attendee. */
+    EVENTS_MATCHED,
+    /** The number of conflicting intervals folded into others while flattening. */
+    INTERVALS_MERGED
+  }
+
+  private static volatile boolean enabled = Boolean.getBoolean(ENABLED_PROPERTY);
+  private static final Map<Metric, Histogram> histograms = new EnumMap<>(Metric.class);
+
+  static {
+    for (Metric metric : Metric.values()) {
+      histograms.put(metric, new Histogram());
+    }
+  }
+
+  private QueryMetrics() {
+    // Disallow instances.
+  }
+
+  /** Turns recording on or off. */
+  public static void setEnabled(boolean enabled) {
+    QueryMetrics.enabled = enabled;
+  }
+
+  /** Returns whether recording is on. */
+  public static boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Starts timing a phase. Returns the current time in nanoseconds, or 0 if recording is off, to be
+   * passed to {@link #stop}.
+   */
+  static long start() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /** Records the time since {@code startNanos}, unless {@link #start} returned 0. */
+  static void stop(Metric metric, long startNanos) {
+    if (startNanos != 0) {
+      histograms.get(metric).record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /** Records a value if recording is on. */
+  static void record(Metric metric, long value) {
+    if (enabled) {
+      histograms.get(metric).record(value);
+    }
+  }
+
+  /** Returns a copy of the statistics of every metric. */
+  public static Map<Metric, Snapshot> snapshot() {
+    Map<Metric, Snapshot> snapshot = new EnumMap<>(Metric.class);
+    for (Map.Entry<Metric, Histogram> entry : histograms.entrySet()) {
+      snapshot.put(entry.getKey(), entry.getValue().snapshot());
+    }
+    return snapshot;
+  }
+
+  /** Clears all statistics. */
+  public static void reset() {
+    for (Histogram histogram : histograms.values()) {
+      histogram.reset();
+    }
+  }
+
+  /**
+   * A lock-free histogram of non-negative values. Bucket 0 holds zeros and bucket i > 0 holds the
+   * values in [2^(i-1), 2^i).
+   */
+  private static final class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Long::max, 0);
+
+    void record(long value) {
+      value = Long.max(0, value);
+      buckets.incrementAndGet(BUCKETS - Long.numberOfLeadingZeros(value));
+      count.increment();
+      sum.add(value);
+      max.accumulate(value);
+    }
+
+    void reset() {
+      for (int i = 0; i < BUCKETS; ++i) {
+        buckets.set(i, 0);
+      }
+      count.reset();
+      sum.reset();
+      max.reset();
+    }
+
+    Snapshot snapshot() {
+      long[] counts = new long[BUCKETS];
+      for (int i = 0; i < BUCKETS; ++i) {
+        counts[i] = buckets.get(i);
+      }
+      return new Snapshot(counts, count.sum(), sum.sum(), max.get());
+    }
+  }
+
+  /** The statistics of one metric at one point in time. */
+  public static final class Snapshot {
+    private final long count;
+    private final long sum;
+    private final long max;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+
+    Snapshot(long[] buckets, long count, long sum, long max) {
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+      this.mean = count > 0 ? (double) sum / count : 0;
+      this.p50 = percentile(buckets, 0.50);
+      this.p90 = percentile(buckets, 0.90);
+      this.p99 = percentile(buckets, 0.99);
+    }
+
+    /**
+     * Returns an upper bound of the given percentile: the largest value of the bucket that holds
+     * it, capped at the largest recorded value.
+     */
+    private long percentile(long[] buckets, double fraction) {
+      long total = 0;
+      for (long bucket : buckets) {
+        total += bucket;
+      }
+      if (total == 0) {
+        return 0;
+      }
+      long rank = (long) Math.ceil(fraction * total);
+      long seen = 0;
+      for (int i = 0; i < buckets.length; ++i) {
+        seen += buckets[i];
+        if (seen >= rank) {
+          return i == 0 ? 0 : Long.min(max, (1L << i) - 1);
+        }
+      }
+      return max;
+    }
+
+    /** Returns the number of recorded values. */
+    public long getCount() {
+      return count;
+    }
+
+    /** Returns the sum of the recorded values. */
+    public long getSum() {
+      return sum;
+    }
+
+    /** Returns the largest recorded value. */
+    public long getMax() {
+      return max;
+    }
+
+    /** Returns the mean of the recorded values. */
+    public double getMean() {
+      return mean;
+    }
+
+    /** Returns an upper bound of the median. */
+    public long getP50() {
+      return p50;
+    }
+
+    /** Returns an upper bound of the 90th percentile. */
+    public long getP90() {
+      return p90;
+    }
+
+    /** Returns an upper bound of the 99th percentile. */
+    public long getP99() {
+      return p99;
+    }
+  }
+}
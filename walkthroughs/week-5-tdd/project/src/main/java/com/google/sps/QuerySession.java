@@ -0,0 +1,238 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A meeting request that is edited one attendee at a time, as in a scheduling UI. The session keeps
+ * the merged conflicts of its attendees between queries, so an edit only touches the busy times of
+ * the person added or removed instead of recomputing everything.
+ *
+ * <p>Each distinct busy interval is stored with a count of the attendees it belongs to, next to the
+ * merged blocks of the conflict set. Adding or removing an attendee changes the counts of their B
+ * busy intervals, and only an interval that appears or disappears touches the blocks: the blocks it
+ * merges or splits are rebuilt from the counts of the intervals inside them, in O(k log N) for k of
+ * the N stored intervals. In the worst case, when one block spans the whole day, k is N. A query
+ * copies the M blocks into an array once after each change, in O(M).
+ *
+ * <p>{@link #query} returns the same answers as {@link EventIndex#query} for an equivalent request.
+ * Sessions are not thread-safe.
+ */
+public final class QuerySession {
+  private final EventIndex index;
+  private final Set<String> attendees = new HashSet<>();
+  private final Set<String> optionalAttendees = new HashSet<>();
+  private final ConflictCounts conflicts = new ConflictCounts();
+  private final ConflictCounts optionalConflicts = new ConflictCounts();
+  private long duration;
+
+  /**
+   * Starts a session from an initial request.
+   *
+   * @param index the index of all scheduled events
+   * @param request the initial meeting request
+   */
+  public QuerySession(EventIndex index, MeetingRequest request) {
+    this.index = index;
+    this.duration = request.getDuration();
+    for (String attendee : request.getAttendees()) {
+      addAttendee(attendee);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      addOptionalAttendee(attendee);
+    }
+  }
+
+  /** Adds a mandatory attendee, who stops being optional if they were. */
+  public void addAttendee(String attendee) {
+    removeOptionalAttendee(attendee);
+    if (attendees.add(attendee)) {
+      conflicts.add(busy(attendee));
+    }
+  }
+
+  /** Removes a mandatory attendee. */
+  public void removeAttendee(String attendee) {
+    if (attendees.remove(attendee)) {
+      conflicts.remove(busy(attendee));
+    }
+  }
+
+  /** Adds an optional attendee, unless they are already a mandatory attendee. */
+  public void addOptionalAttendee(String attendee) {
+    if (!attendees.contains(attendee) && optionalAttendees.add(attendee)) {
+      optionalConflicts.add(busy(attendee));
+    }
+  }
+
+  /** Removes an optional attendee. */
+  public void removeOptionalAttendee(String attendee) {
+    if (optionalAttendees.remove(attendee)) {
+      optionalConflicts.remove(busy(attendee));
+    }
+  }
+
+  /** Changes the duration of the meeting in minutes. */
+  public void setDuration(long duration) {
+    this.duration = duration;
+  }
+
+  /** Returns the duration of the meeting in minutes. */
+  public long getDuration() {
+    return duration;
+  }
+
+  /** Returns a read-only view of the mandatory attendees. */
+  public Collection<String> getAttendees() {
+    return Collections.unmodifiableCollection(attendees);
+  }
+
+  /** Returns a read-only view of the optional attendees. */
+  public Collection<String> getOptionalAttendees() {
+    return Collections.unmodifiableCollection(optionalAttendees);
+  }
+
+  /**
+   * Finds all time intervals where the session's attendees can meet. See {@link
+   * FindMeetingQuery#query} for the handling of optional attendees.
+   *
+   * @return an ordered collection of TimeRanges where all attendees can attend a meeting, or an
+   *     empty collection if no valid times exist.
+   */
+  public Collection<TimeRange> query() {
+    long[] mandatory = conflicts.flattened();
+    long[] optional = optionalConflicts.flattened();
+    if (optional.length > 0) {
+      long[] combined = new long[mandatory.length + optional.length];
+      int combinedCount =
+          PackedIntervals.union(mandatory, mandatory.length, optional, optional.length, combined);
+      // Same edge case as FindMeetingQuery: with optional attendees only, there is no fallback.
+      if (attendees.isEmpty() || PackedIntervals.hasValidTime(combined, combinedCount, duration)) {
+        return PackedIntervals.validTimes(combined, combinedCount, duration);
+      }
+    }
+    return PackedIntervals.validTimes(mandatory, mandatory.length, duration);
+  }
+
+  private long[] busy(String attendee) {
+    return index.busy(Collections.singleton(attendee));
+  }
+
+  /**
+   * A multiset of busy intervals together with their flattened union, which is kept up to date as
+   * intervals come and go.
+   */
+  private static final class ConflictCounts {
+    // The number of attendees each distinct packed interval belongs to, ordered by start time.
+    private final TreeMap<Long, Integer> counts = new TreeMap<>();
+    // The flattened union of the intervals in counts, as end time by start time. The blocks are
+    // exactly those PackedIntervals.flattenSorted would produce from the keys of counts.
+    private final TreeMap<Integer, Integer> blocks = new TreeMap<>();
+    // The blocks as a packed array, or null if they changed since it was last built.
+    private long[] flattened = new long[0];
+
+    /** Adds one attendee's flattened busy intervals. */
+    void add(long[] busy) {
+      for (long interval : busy) {
+        if (counts.merge(interval, 1, Integer::sum) == 1) {
+          reflatten(PackedIntervals.start(interval));
+        }
+      }
+    }
+
+    /** Removes one attendee's flattened busy intervals. */
+    void remove(long[] busy) {
+      for (long interval : busy) {
+        if (counts.computeIfPresent(interval, (key, count) -> count > 1 ? count - 1 : null)
+            == null) {
+          reflatten(PackedIntervals.start(interval));
+        }
+      }
+    }
+
+    /**
+     * Rebuilds the blocks after an interval starting at {@code changedStart} appeared in or
+     * disappeared from counts. The flattening sweep is restarted at the last block that starts at
+     * or before the change, since the sweep state there does not depend on the change, and it stops
+     * at the first later block that it starts anew, since everything after that is unchanged. So
+     * only the intervals of the blocks the change merges or splits are visited, in O(k log N) for k
+     * such intervals out of N.
+     */
+    private void reflatten(int changedStart) {
+      Integer floor = blocks.floorKey(changedStart);
+      int from = floor != null ? floor : changedStart;
+      List<Long> rebuilt = new ArrayList<>();
+      Integer stop = null;
+      int blockStart = 0;
+      int blockEnd = 0;
+      boolean open = false;
+      for (long interval : counts.tailMap(PackedIntervals.pack(from, 0), true).keySet()) {
+        int start = PackedIntervals.start(interval);
+        int end = PackedIntervals.end(interval);
+        if (open && (start == blockStart || start < blockEnd)) {
+          blockEnd = Integer.max(blockEnd, end);
+          continue;
+        }
+        if (start > changedStart && blocks.containsKey(start)) {
+          stop = start;
+          break;
+        }
+        if (open) {
+          rebuilt.add(PackedIntervals.pack(blockStart, blockEnd));
+        }
+        blockStart = start;
+        blockEnd = end;
+        open = true;
+      }
+      if (open) {
+        rebuilt.add(PackedIntervals.pack(blockStart, blockEnd));
+      }
+
+      if (stop != null) {
+        blocks.subMap(from, true, stop, false).clear();
+      } else {
+        blocks.tailMap(from, true).clear();
+      }
+      for (long block : rebuilt) {
+        blocks.put(PackedIntervals.start(block), PackedIntervals.end(block));
+      }
+      flattened = null;
+    }
+
+    /**
+     * Returns the flattened union of all intervals. The array must not be modified. Runtime O(M)
+     * for M blocks after a change, which a query spends on the gaps between them anyway.
+     */
+    long[] flattened() {
+      if (flattened == null) {
+        long[] intervals = new long[blocks.size()];
+        int size = 0;
+        for (Map.Entry<Integer, Integer> block : blocks.entrySet()) {
+          intervals[size++] = PackedIntervals.pack(block.getKey(), block.getValue());
+        }
+        flattened = intervals;
+      }
+      return flattened;
+    }
+  }
+}
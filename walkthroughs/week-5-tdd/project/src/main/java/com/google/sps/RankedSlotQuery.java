@@ -0,0 +1,145 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.sps.QueryMetrics.Metric;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Recommends the best K meeting slots for a request, ranked by a set of {@link SlotPreferences}.
+ *
+ * <p>The free gaps are those {@link EventIndex#query} would return, but they are scanned straight
+ * from the flattened conflict set instead of being collected. Every gap offers a few candidate
+ * slots of exactly the meeting's duration: flush with either end of the gap, and as close as
+ * possible to the target time and to either edge of the preferred hours. Candidates go through a
+ * heap bounded to K entries, so the runtime is O(G log K) for G gaps and nothing but the answer is
+ * kept.
+ */
+public final class RankedSlotQuery {
+  /** Orders slots from best to worst, breaking ties by start time. */
+  private static final Comparator<ScoredSlot> BEST_FIRST =
+      new Comparator<ScoredSlot>() {
+        @Override
+        public int compare(ScoredSlot a, ScoredSlot b) {
+          int byPenalty = Long.compare(a.penalty, b.penalty);
+          return byPenalty != 0 ? byPenalty : Integer.compare(a.start, b.start);
+        }
+      };
+
+  /**
+   * Finds the best slots for a meeting.
+   *
+   * @param index the index of all scheduled events
+   * @param request the meeting request
+   * @param preferences how to rank the slots
+   * @param limit the maximum number of slots to return. Must be positive.
+   * @return up to {@code limit} distinct slots of exactly the requested duration, best first
+   */
+  public List<TimeRange> query(
+      EventIndex index, MeetingRequest request, SlotPreferences preferences, int limit) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return new ArrayList<TimeRange>();
+    }
+    int duration = (int) Long.max(0, request.getDuration());
+
+    // The head of the heap is the worst slot kept so far. It grows with the slots found, not with
+    // the limit, which may be far larger.
+    PriorityQueue<ScoredSlot> best = new PriorityQueue<>(BEST_FIRST.reversed());
+    long[] conflicts = index.conflicts(request);
+    long phaseStart = QueryMetrics.start();
+    int gapStart = TimeRange.START_OF_DAY;
+    for (int i = 0; i <= conflicts.length; ++i) {
+      int gapEnd =
+          i < conflicts.length ? PackedIntervals.start(conflicts[i]) : TimeRange.WHOLE_DAY.end();
+      if (PackedIntervals.fits(gapStart, gapEnd, duration)) {
+        offerCandidates(best, limit, preferences, gapStart, gapEnd, duration);
+      }
+      if (i < conflicts.length) {
+        gapStart = PackedIntervals.end(conflicts[i]);
+      }
+    }
+    QueryMetrics.stop(Metric.GET_VALID_TIMES_NANOS, phaseStart);
+
+    List<ScoredSlot> ranked = new ArrayList<>(best);
+    Collections.sort(ranked, BEST_FIRST);
+    List<TimeRange> slots = new ArrayList<TimeRange>(ranked.size());
+    for (ScoredSlot slot : ranked) {
+      slots.add(TimeRange.fromStartDuration(slot.start, duration));
+    }
+    return slots;
+  }
+
+  /** Offers the candidate slots of one free gap to the bounded heap. */
+  private static void offerCandidates(
+      PriorityQueue<ScoredSlot> best,
+      int limit,
+      SlotPreferences preferences,
+      int gapStart,
+      int gapEnd,
+      int duration) {
+    int latestStart = gapEnd - duration;
+    int[] candidates = {
+      gapStart,
+      latestStart,
+      preferences.preferredStart(),
+      preferences.preferredEnd() - duration,
+      preferences.targetTime() >= 0 ? preferences.targetTime() : gapStart
+    };
+
+    for (int i = 0; i < candidates.length; ++i) {
+      int start = Integer.max(gapStart, Integer.min(latestStart, candidates[i]));
+      if (isDuplicate(candidates, i, start, gapStart, latestStart)) {
+        continue;
+      }
+      ScoredSlot slot =
+          new ScoredSlot(start, preferences.penalty(start, start + duration, gapStart, gapEnd));
+      if (best.size() < limit) {
+        best.add(slot);
+      } else if (BEST_FIRST.compare(slot, best.peek()) < 0) {
+        best.poll();
+        best.add(slot);
+      }
+    }
+  }
+
+  /** Returns whether an earlier candidate clamps to the same start as candidate {@code index}. */
+  private static boolean isDuplicate(
+      int[] candidates, int index, int start, int gapStart, int latestStart) {
+    for (int i = 0; i < index; ++i) {
+      if (Integer.max(gapStart, Integer.min(latestStart, candidates[i])) == start) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** A candidate slot start and its penalty. */
+  private static final class ScoredSlot {
+    private final int start;
+    private final long penalty;
+
+    ScoredSlot(int start, long penalty) {
+      this.start = start;
+      this.penalty = penalty;
+    }
+  }
+}
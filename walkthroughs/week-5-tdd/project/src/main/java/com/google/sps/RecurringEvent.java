@@ -0,0 +1,175 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * An event that repeats every few days at the same time of day, such as a daily standup or a weekly
+ * review. Days are numbered consecutively, for example as days since the epoch. Instead of being
+ * stored once per day, a recurring event is expanded only for the day being queried, see {@link
+ * FindMeetingQuery#query(Collection, Collection, int, MeetingRequest)}.
+ *
+ * <p>Recurring events are considered read-only.
+ */
+public final class RecurringEvent {
+  /** The last day of a recurring event that never ends. */
+  public static final int FOREVER = Integer.MAX_VALUE;
+
+  private final String title;
+  private final TimeRange when;
+  private final Set<String> attendees = new HashSet<>();
+  // Derived from attendees on first use; see Event#getAttendeeSet.
+  private volatile AttendeeSet attendeeSet;
+  private final int firstDay;
+  private final int intervalDays;
+  private final int lastDay;
+  // Sorted days on which the event is skipped.
+  private final int[] exceptions;
+
+  /**
+   * Creates an event that repeats forever without exceptions.
+   *
+   * @see #RecurringEvent(String, TimeRange, Collection, int, int, int, Collection)
+   */
+  public RecurringEvent(
+      String title, TimeRange when, Collection<String> attendees, int firstDay, int intervalDays) {
+    this(title, when, attendees, firstDay, intervalDays, FOREVER, Collections.<Integer>emptySet());
+  }
+
+  /**
+   * Creates a new recurring event.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time of day when each occurrence takes place. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param firstDay The day of the first occurrence.
+   * @param intervalDays The number of days from one occurrence to the next: 1 for a daily event, 7
+   *     for a weekly one. Must be positive.
+   * @param lastDay The last day on which the event may occur, or {@link #FOREVER}. Must not be
+   *     before firstDay.
+   * @param exceptions The days on which the event is skipped. Must be non-null.
+   */
+  public RecurringEvent(
+      String title,
+      TimeRange when,
+      Collection<String> attendees,
+      int firstDay,
+      int intervalDays,
+      int lastDay,
+      Collection<Integer> exceptions) {
+    if (title == null) {
+      throw new IllegalArgumentException("title cannot be null");
+    }
+
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (attendees == null) {
+      throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+    }
+
+    if (intervalDays <= 0) {
+      throw new IllegalArgumentException("intervalDays must be positive");
+    }
+
+    if (lastDay < firstDay) {
+      throw new IllegalArgumentException("lastDay cannot be before firstDay");
+    }
+
+    if (exceptions == null) {
+      throw new IllegalArgumentException("exceptions cannot be null. Use empty set instead.");
+    }
+
+    this.title = title;
+    this.when = when;
+    this.attendees.addAll(attendees);
+    this.firstDay = firstDay;
+    this.intervalDays = intervalDays;
+    this.lastDay = lastDay;
+    this.exceptions = new int[exceptions.size()];
+    int i = 0;
+    for (int day : exceptions) {
+      this.exceptions[i++] = day;
+    }
+    Arrays.sort(this.exceptions);
+  }
+
+  /** Returns the human-readable name for this event. */
+  public String getTitle() {
+    return title;
+  }
+
+  /** Returns the time of day when each occurrence takes place. */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /** Returns a read-only set of required attendees for this event. */
+  public Set<String> getAttendees() {
+    return Collections.unmodifiableSet(attendees);
+  }
+
+  /**
+   * Returns the attendees of this event as IDs in {@code dictionary}, interning them on first use.
+   */
+  AttendeeSet getAttendeeSet(AttendeeIds dictionary) {
+    AttendeeSet cached = attendeeSet;
+    if (cached != null && cached.belongsTo(dictionary)) {
+      return cached;
+    }
+    AttendeeSet set = AttendeeSet.intern(attendees, dictionary);
+    if (set.replaces(cached)) {
+      attendeeSet = set;
+    }
+    return set;
+  }
+
+  /** Returns the day of the first occurrence. */
+  public int getFirstDay() {
+    return firstDay;
+  }
+
+  /** Returns the number of days from one occurrence to the next. */
+  public int getIntervalDays() {
+    return intervalDays;
+  }
+
+  /** Returns the last day on which the event may occur, or {@link #FOREVER}. */
+  public int getLastDay() {
+    return lastDay;
+  }
+
+  /** Returns whether the event takes place on {@code day}. Runtime O(log X) for X exceptions. */
+  public boolean occursOn(int day) {
+    return day >= firstDay
+        && day <= lastDay
+        && (day - firstDay) % intervalDays == 0
+        && Arrays.binarySearch(exceptions, day) < 0;
+  }
+
+  /** Returns the occurrence on {@code day} as a one-off event. */
+  public Event on(int day) {
+    if (!occursOn(day)) {
+      throw new IllegalArgumentException(title + " does not occur on day " + day);
+    }
+    return new Event(title, when, attendees);
+  }
+}
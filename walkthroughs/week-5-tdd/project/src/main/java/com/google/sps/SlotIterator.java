@@ -0,0 +1,217 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Produces the answer to {@link EventIndex#query} one slot at a time. The requested attendees' busy
+ * lists are merged and flattened lazily while the iterator walks the day, so a caller that only
+ * wants the first slot pays for the conflicts before that slot and no more. No work happens between
+ * calls to {@link #next}.
+ *
+ * <p>Slots can be limited to a window of the day and their starts aligned to a step, such as every
+ * 15 minutes. A slot then starts at the first aligned minute of a free range inside the window and
+ * runs to the end of that range or of the window, whichever comes first. With the whole day as the
+ * window and a step of one minute, the slots are exactly those of {@link EventIndex#query}.
+ *
+ * <p>Iterators are not thread-safe.
+ */
+final class SlotIterator implements Iterator<TimeRange> {
+  private final long minDuration;
+  private final int windowStart;
+  private final int windowEnd;
+  private final int alignment;
+  private final Conflicts conflicts;
+
+  // The start of the free range after the conflicts read so far.
+  private int gapStart = TimeRange.START_OF_DAY;
+  private TimeRange next;
+  private boolean done;
+
+  /**
+   * Creates an iterator over the slots of a request.
+   *
+   * @param mandatory the flattened busy lists of the mandatory attendees
+   * @param optional the flattened busy lists of the optional attendees
+   * @param request the meeting request
+   * @param window the part of the day the slots must fall in. Must be non-null.
+   * @param alignment the step, in minutes, that slot starts are a multiple of. Must be positive.
+   */
+  SlotIterator(
+      long[][] mandatory,
+      long[][] optional,
+      MeetingRequest request,
+      TimeRange window,
+      int alignment) {
+    if (window == null) {
+      throw new IllegalArgumentException("window cannot be null");
+    }
+    if (alignment < 1) {
+      throw new IllegalArgumentException("alignment must be positive");
+    }
+    this.minDuration = request.getDuration();
+    this.windowStart = window.start();
+    this.windowEnd = window.end();
+    this.alignment = alignment;
+    this.conflicts = choose(mandatory, optional, request);
+  }
+
+  /**
+   * Picks the conflicts whose gaps answer the request, following the same rule as {@link
+   * EventIndex#conflicts}. Deciding whether the optional attendees fit stops at the first gap that
+   * is long enough.
+   */
+  private static Conflicts choose(long[][] mandatory, long[][] optional, MeetingRequest request) {
+    if (optional.length == 0) {
+      return new Conflicts(mandatory);
+    }
+    long[][] combined = new long[mandatory.length + optional.length][];
+    System.arraycopy(mandatory, 0, combined, 0, mandatory.length);
+    System.arraycopy(optional, 0, combined, mandatory.length, optional.length);
+    // Same edge case as FindMeetingQuery: with optional attendees only, there is no fallback.
+    if (request.getAttendees().isEmpty()
+        || hasValidTime(new Conflicts(combined), request.getDuration())) {
+      return new Conflicts(combined);
+    }
+    return new Conflicts(mandatory);
+  }
+
+  /** The lazy equivalent of {@link PackedIntervals#hasValidTime}. */
+  private static boolean hasValidTime(Conflicts conflicts, long minDuration) {
+    int startTime = TimeRange.START_OF_DAY;
+    while (conflicts.hasNext()) {
+      long conflict = conflicts.next();
+      if ((long) (PackedIntervals.start(conflict) - startTime) >= minDuration) {
+        return true;
+      }
+      startTime = PackedIntervals.end(conflict);
+    }
+    return TimeRange.END_OF_DAY - startTime >= minDuration;
+  }
+
+  @Override
+  public boolean hasNext() {
+    while (next == null && !done) {
+      advance();
+    }
+    return next != null;
+  }
+
+  @Override
+  public TimeRange next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    TimeRange slot = next;
+    next = null;
+    return slot;
+  }
+
+  /** Reads the next conflict, and sets {@link #next} if the gap before it holds a slot. */
+  private void advance() {
+    if (gapStart > windowEnd) {
+      done = true;
+      return;
+    }
+    if (!conflicts.hasNext()) {
+      // Final element, measured against the end of the day as in PackedIntervals.validTimes.
+      done = true;
+      next = slot(gapStart, TimeRange.WHOLE_DAY.end(), true);
+      return;
+    }
+    long conflict = conflicts.next();
+    next = slot(gapStart, PackedIntervals.start(conflict), false);
+    // Skip over entire conflict region.
+    gapStart = PackedIntervals.end(conflict);
+  }
+
+  /** Returns the slot inside the free range [start, end), or null if the range holds none. */
+  private TimeRange slot(int start, int end, boolean lastGap) {
+    int slotStart = Integer.max(start, windowStart);
+    int remainder = Math.floorMod(slotStart, alignment);
+    if (remainder != 0) {
+      slotStart += alignment - remainder;
+    }
+    int slotEnd = Integer.min(end, windowEnd);
+    if (lastGap && slotEnd == end) {
+      if (TimeRange.END_OF_DAY - slotStart >= minDuration) {
+        return TimeRange.fromStartEnd(slotStart, TimeRange.END_OF_DAY, true);
+      }
+    } else if ((long) (slotEnd - slotStart) >= minDuration) {
+      return TimeRange.fromStartEnd(slotStart, slotEnd, false);
+    }
+    return null;
+  }
+
+  /**
+   * A lazy k-way merge of flattened busy lists, which flattens the merged intervals as they are
+   * read with the same rules as {@link PackedIntervals#flattenSorted}.
+   */
+  private static final class Conflicts {
+    private final long[][] lists;
+    private final int[] heap;
+    private final int[] positions;
+    private int heapSize;
+
+    Conflicts(long[][] lists) {
+      this.lists = lists;
+      this.heap = new int[lists.length];
+      this.positions = new int[lists.length];
+      for (int list = 0; list < lists.length; ++list) {
+        if (lists[list].length > 0) {
+          heap[heapSize++] = list;
+        }
+      }
+      for (int i = heapSize / 2 - 1; i >= 0; --i) {
+        PackedIntervals.siftDown(heap, heapSize, i, lists, positions);
+      }
+    }
+
+    boolean hasNext() {
+      return heapSize > 0;
+    }
+
+    /** Returns the next flattened conflict. */
+    long next() {
+      long first = pop();
+      int startTime = PackedIntervals.start(first);
+      int endTime = PackedIntervals.end(first);
+      while (heapSize > 0) {
+        int start = PackedIntervals.start(peek());
+        if (start != startTime && start >= endTime) {
+          break;
+        }
+        endTime = Integer.max(endTime, PackedIntervals.end(pop()));
+      }
+      return PackedIntervals.pack(startTime, endTime);
+    }
+
+    private long peek() {
+      return lists[heap[0]][positions[heap[0]]];
+    }
+
+    private long pop() {
+      int list = heap[0];
+      long interval = lists[list][positions[list]++];
+      if (positions[list] == lists[list].length) {
+        heap[0] = heap[--heapSize];
+      }
+      PackedIntervals.siftDown(heap, heapSize, 0, lists, positions);
+      return interval;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * Describes which meeting slots a person prefers, for ranking slots with {@link RankedSlotQuery}.
+ * Every preference is optional; a default instance ranks all slots equally, earliest first.
+ */
+public final class SlotPreferences {
+  // How much worse a minute outside of the preferred hours is than a minute away from the target.
+  private static final long OUTSIDE_PREFERRED_HOURS_WEIGHT = 10;
+  // The penalty for each piece of free time a slot leaves behind that is too short to use.
+  private static final long FRAGMENT_PENALTY = 30;
+
+  // The preferred hours are [preferredStart, preferredEnd), in minutes.
+  private int preferredStart = TimeRange.START_OF_DAY;
+  private int preferredEnd = TimeRange.WHOLE_DAY.end();
+
+  // The time the meeting should start as close to as possible, or -1 for no target.
+  private int targetTime = -1;
+
+  // Whether to avoid slots that leave unusably short pieces of free time behind.
+  private boolean avoidFragmentation = false;
+
+  /** Creates preferences that rank all slots equally. */
+  public SlotPreferences() {}
+
+  /** Prefers slots that lie within {@code hours}. */
+  public void setPreferredHours(TimeRange hours) {
+    this.preferredStart = hours.start();
+    this.preferredEnd = hours.end();
+  }
+
+  /** Prefers slots that start as close to {@code targetTime}, in minutes, as possible. */
+  public void setTargetTime(int targetTime) {
+    if (targetTime < TimeRange.START_OF_DAY || targetTime > TimeRange.END_OF_DAY) {
+      throw new IllegalArgumentException("targetTime must be within the day");
+    }
+    this.targetTime = targetTime;
+  }
+
+  /** Prefers slots that do not leave pieces of free time too short for another such meeting. */
+  public void setAvoidFragmentation(boolean avoidFragmentation) {
+    this.avoidFragmentation = avoidFragmentation;
+  }
+
+  /** Returns the start of the preferred hours. */
+  int preferredStart() {
+    return preferredStart;
+  }
+
+  /** Returns the exclusive end of the preferred hours. */
+  int preferredEnd() {
+    return preferredEnd;
+  }
+
+  /** Returns the target start time, or -1 if there is none. */
+  int targetTime() {
+    return targetTime;
+  }
+
+  /**
+   * Returns the penalty of holding a meeting over [start, end) inside the free gap [gapStart,
+   * gapEnd). Lower is better.
+   */
+  long penalty(int start, int end, int gapStart, int gapEnd) {
+    long penalty = 0;
+
+    int outsideBefore = Integer.max(0, Integer.min(end, preferredStart) - start);
+    int outsideAfter = Integer.max(0, end - Integer.max(start, preferredEnd));
+    penalty += OUTSIDE_PREFERRED_HOURS_WEIGHT * (outsideBefore + outsideAfter);
+
+    if (targetTime >= 0) {
+      penalty += Math.abs(start - targetTime);
+    }
+
+    if (avoidFragmentation) {
+      int duration = end - start;
+      int before = start - gapStart;
+      int after = gapEnd - end;
+      if (before > 0 && before < duration) {
+        penalty += FRAGMENT_PENALTY;
+      }
+      if (after > 0 && after < duration) {
+        penalty += FRAGMENT_PENALTY;
+      }
+    }
+    return penalty;
+  }
+}
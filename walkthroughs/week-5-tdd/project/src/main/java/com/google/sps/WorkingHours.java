@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * The hours a person is willing to meet, given in their own time zone. The calendar's day runs from
+ * 0:00 to 24:00 UTC, so the local window is shifted by the person's UTC offset, and may wrap around
+ * the day boundary. The minutes outside of the window are computed once, as a sorted list of packed
+ * intervals, so they can be merged into a conflict set like ordinary events.
+ *
+ * <p>Instances are immutable.
+ */
+public final class WorkingHours {
+  // The longest offset in use, UTC+14:00.
+  private static final int MAX_UTC_OFFSET = 14 * 60;
+  private static final int DAY = TimeRange.WHOLE_DAY.duration();
+
+  private final int startMinute;
+  private final int endMinute;
+  private final int utcOffsetMinutes;
+  // The flattened, packed times of the calendar day outside of the working hours.
+  private final long[] offHours;
+
+  /**
+   * Creates a new working-hours window.
+   *
+   * @param startMinute the local start of the working day, in minutes after midnight
+   * @param endMinute the local, exclusive end of the working day, in minutes after midnight. Must
+   *     be after startMinute and at most 24:00.
+   * @param utcOffsetMinutes the person's offset from UTC in minutes, for example -300 for UTC-05:00
+   */
+  public WorkingHours(int startMinute, int endMinute, int utcOffsetMinutes) {
+    if (startMinute < TimeRange.START_OF_DAY || endMinute > DAY || startMinute >= endMinute) {
+      throw new IllegalArgumentException("working hours must be a non-empty part of the day");
+    }
+
+    if (Math.abs(utcOffsetMinutes) > MAX_UTC_OFFSET) {
+      throw new IllegalArgumentException("utcOffsetMinutes out of range: " + utcOffsetMinutes);
+    }
+
+    this.startMinute = startMinute;
+    this.endMinute = endMinute;
+    this.utcOffsetMinutes = utcOffsetMinutes;
+
+    // The working window in UTC, which wraps past midnight if it ends after 24:00.
+    int utcStart = Math.floorMod(startMinute - utcOffsetMinutes, DAY);
+    int utcEnd = utcStart + (endMinute - startMinute);
+    long[] offHours = new long[2];
+    int size = 0;
+    if (utcEnd <= DAY) {
+      if (utcStart > 0) {
+        offHours[size++] = PackedIntervals.pack(0, utcStart);
+      }
+      if (utcEnd < DAY) {
+        offHours[size++] = PackedIntervals.pack(utcEnd, DAY);
+      }
+    } else if (utcEnd - DAY < utcStart) {
+      offHours[size++] = PackedIntervals.pack(utcEnd - DAY, utcStart);
+    }
+    this.offHours = Arrays.copyOf(offHours, size);
+  }
+
+  /** Returns the local start of the working day, in minutes after midnight. */
+  public int getStartMinute() {
+    return startMinute;
+  }
+
+  /** Returns the local, exclusive end of the working day, in minutes after midnight. */
+  public int getEndMinute() {
+    return endMinute;
+  }
+
+  /** Returns the person's offset from UTC in minutes. */
+  public int getUtcOffsetMinutes() {
+    return utcOffsetMinutes;
+  }
+
+  /**
+   * Returns the flattened, packed times of the calendar day outside of the working hours, ordered
+   * by start time. The returned array must not be modified.
+   */
+  long[] offHours() {
+    return offHours;
+  }
+}
@@ -0,0 +1,279 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests in one call. The requests are spread over the batch pool
+ * of {@link QueryWorkers} and answered like {@link QueryServlet} answers them, through the query
+ * cache, with groups standing for their members. The answers are streamed back as one JSON array in
+ * request order, using non-blocking writes: each answer goes out as soon as it and every answer
+ * before it are known, and no thread waits for a query.
+ *
+ * <p>A batch holds at most {@value #MAX_BATCH_SIZE} requests, and a batch with a malformed request
+ * is rejected as a whole with a 400. If the pool has no room for the whole batch, or the batch does
+ * not finish within {@link QueryWorkers#QUERY_TIMEOUT_MILLIS}, the client gets a 503, or a
+ * truncated array if some answers already went out.
+ */
+@WebServlet(urlPatterns = "/batch-query", asyncSupported = true)
+public class BatchQueryServlet extends HttpServlet {
+  private static final Type ANSWER_TYPE = new TypeToken<Collection<TimeRange>>() {}.getType();
+  // The most requests one batch may hold.
+  static final int MAX_BATCH_SIZE = 500;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to MeetingRequests, checking every one of them before any query starts.
+    RequestBody[] bodies = gson.fromJson(request.getReader(), RequestBody[].class);
+    if (bodies == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a JSON array of requests.");
+      return;
+    }
+    if (bodies.length > MAX_BATCH_SIZE) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST,
+          "A batch may hold at most " + MAX_BATCH_SIZE + " requests.");
+      return;
+    }
+    List<MeetingRequest> meetingRequests = new ArrayList<>(bodies.length);
+    for (RequestBody body : bodies) {
+      if (body == null
+          || body.attendees == null
+          || body.attendees.contains(null)
+          || (body.optional_attendees != null && body.optional_attendees.contains(null))
+          || body.duration < 0) {
+        response.sendError(
+            HttpServletResponse.SC_BAD_REQUEST,
+            "Every request needs a list of attendees and a duration that is not negative.");
+        return;
+      }
+      MeetingRequest meetingRequest = new MeetingRequest(body.attendees, body.duration);
+      if (body.optional_attendees != null) {
+        for (String attendee : body.optional_attendees) {
+          meetingRequest.addOptionalAttendee(attendee);
+        }
+      }
+      meetingRequests.add(meetingRequest);
+    }
+
+    response.setContentType("application/json");
+    if (meetingRequests.isEmpty()) {
+      response.getWriter().println("[]");
+      return;
+    }
+    if (!QueryWorkers.tryAdmitBatch(meetingRequests.size())) {
+      QueryWorkers.sendUnavailable(response);
+      return;
+    }
+
+    AsyncContext asyncContext = request.startAsync();
+    asyncContext.setTimeout(QueryWorkers.QUERY_TIMEOUT_MILLIS);
+    AnswerStream stream =
+        new AnswerStream(
+            asyncContext, response, response.getOutputStream(), meetingRequests.size());
+    asyncContext.addListener(stream);
+    response.getOutputStream().setWriteListener(stream);
+
+    for (int i = 0; i < meetingRequests.size(); ++i) {
+      int position = i;
+      MeetingRequest meetingRequest = meetingRequests.get(i);
+      try {
+        CompletableFuture.supplyAsync(
+                () -> stream.isClosed() ? null : answer(gson, meetingRequest),
+                QueryWorkers.batchPool())
+            .whenComplete(
+                (json, error) -> {
+                  QueryWorkers.finishBatchQuery();
+                  stream.onAnswer(position, json, error);
+                });
+      } catch (RejectedExecutionException e) {
+        // The pool is shutting down: give back the room of the queries that never started.
+        for (int j = i; j < meetingRequests.size(); ++j) {
+          QueryWorkers.finishBatchQuery();
+        }
+        stream.fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Finds the possible meeting times for one request, reusing the answer to an identical earlier
+   * request, and returns them as JSON. The snapshot is read inside the cache, as in {@link
+   * QueryServlet}, so each answer is correct for the calendar at some moment during the batch.
+   */
+  private static String answer(Gson gson, MeetingRequest meetingRequest) {
+    Collection<TimeRange> answer =
+        CalendarData.queryCache()
+            .query(
+                meetingRequest, query -> CalendarData.groups().query(CalendarData.index(), query));
+    return gson.toJson(answer, ANSWER_TYPE);
+  }
+
+  /**
+   * Writes the answers of one batch as a JSON array, in request order, as fast as the client takes
+   * them. Answers arrive on the pool's threads in any order; whichever thread finds the output
+   * ready writes the next answers, one write per answer.
+   */
+  private static final class AnswerStream implements WriteListener, AsyncListener {
+    private final AsyncContext asyncContext;
+    private final HttpServletResponse response;
+    private final ServletOutputStream out;
+    // Each answer with its separator, ready to be written. Cleared once written.
+    private final AtomicReferenceArray<byte[]> chunks;
+    // The position of the next answer to write.
+    private int next = 0;
+    // Set once the response is finished, successfully or not. Queries still waiting are skipped.
+    private volatile boolean closed = false;
+
+    AnswerStream(
+        AsyncContext asyncContext,
+        HttpServletResponse response,
+        ServletOutputStream out,
+        int size) {
+      this.asyncContext = asyncContext;
+      this.response = response;
+      this.out = out;
+      this.chunks = new AtomicReferenceArray<>(size);
+    }
+
+    boolean isClosed() {
+      return closed;
+    }
+
+    /** Takes the answer at {@code position}, or the error that kept it from being found. */
+    void onAnswer(int position, String json, Throwable error) {
+      if (error != null) {
+        fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        return;
+      }
+      if (json == null) {
+        // The query was skipped because the response is already finished.
+        return;
+      }
+      String prefix = position == 0 ? "[" : ",";
+      String suffix = position == chunks.length() - 1 ? "]" : "";
+      chunks.set(position, (prefix + json + suffix).getBytes(StandardCharsets.UTF_8));
+      synchronized (this) {
+        try {
+          // When the output is not ready, the container calls onWritePossible once it is.
+          if (!closed && out.isReady()) {
+            writeReady();
+          }
+        } catch (IOException e) {
+          fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+      }
+    }
+
+    @Override
+    public synchronized void onWritePossible() throws IOException {
+      if (!closed) {
+        writeReady();
+      }
+    }
+
+    /** Writes the answers that are next in line, for as long as the output takes them. */
+    private void writeReady() throws IOException {
+      while (out.isReady()) {
+        if (next == chunks.length()) {
+          closed = true;
+          asyncContext.complete();
+          return;
+        }
+        byte[] chunk = chunks.getAndSet(next, null);
+        if (chunk == null) {
+          return;
+        }
+        out.write(chunk);
+        ++next;
+      }
+    }
+
+    /**
+     * Ends the response early: with {@code status} if nothing has been written yet, otherwise with
+     * the truncated array.
+     */
+    synchronized void fail(int status) {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (next == 0) {
+        try {
+          if (status == HttpServletResponse.SC_SERVICE_UNAVAILABLE) {
+            QueryWorkers.sendUnavailable(response);
+          } else {
+            response.setStatus(status);
+          }
+        } catch (IOException e) {
+          // The client is gone; there is nobody to tell.
+        }
+      }
+      asyncContext.complete();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      // Writing failed, most likely because the client went away.
+      fail(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+    }
+
+    @Override
+    public void onTimeout(AsyncEvent event) {
+      fail(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+
+    @Override
+    public void onComplete(AsyncEvent event) {}
+
+    @Override
+    public void onError(AsyncEvent event) {}
+
+    @Override
+    public void onStartAsync(AsyncEvent event) {}
+  }
+
+  /** The JSON form of one meeting request, in the field names of {@link MeetingRequest}. */
+  private static final class RequestBody {
+    private List<String> attendees;
+    private List<String> optional_attendees;
+    private long duration;
+  }
+}
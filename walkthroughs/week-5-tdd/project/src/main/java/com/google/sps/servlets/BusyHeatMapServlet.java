@@ -0,0 +1,64 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.BusyHeatMap;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Returns how many of a group of attendees are busy throughout the day. The body is a JSON object
+ * with the {@code attendees} and an optional {@code bucketMinutes}. Attendees may name groups,
+ * whose members are each counted once. The answer is run-length encoded as a list of {@code {start,
+ * end, busy}} objects.
+ */
+@WebServlet("/busy-heatmap")
+public class BusyHeatMapServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    HeatMapRequest heatMapRequest = gson.fromJson(request.getReader(), HeatMapRequest.class);
+    if (heatMapRequest == null || heatMapRequest.attendees == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a list of attendees.");
+      return;
+    }
+    int bucketMinutes = heatMapRequest.bucketMinutes != null ? heatMapRequest.bucketMinutes : 1;
+    if (bucketMinutes < 1 || bucketMinutes > TimeRange.WHOLE_DAY.duration()) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "bucketMinutes out of range.");
+      return;
+    }
+
+    List<BusyHeatMap.Run> runs =
+        new BusyHeatMap(
+                CalendarData.index(), CalendarData.groups().expand(heatMapRequest.attendees))
+            .runs(bucketMinutes);
+
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(runs));
+  }
+
+  /** The body of a heat map request. */
+  private static final class HeatMapRequest {
+    private List<String> attendees;
+    private Integer bucketMinutes;
+  }
+}
@@ -0,0 +1,103 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AttendeeGroups;
+import com.google.sps.CalendarStore;
+import com.google.sps.EventIndex;
+import com.google.sps.EventLog;
+import com.google.sps.Events;
+import com.google.sps.QueryCache;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Holds the calendar data shared by all servlets. The events are first read from the event log
+ * named by the {@value #EVENT_LOG_PROPERTY} system property if it is set, and from {@link Events}
+ * otherwise. Later changes made through {@link EventsServlet} publish new snapshots of the index.
+ * Attendee groups are defined through {@link GroupsServlet}.
+ */
+final class CalendarData {
+  /** The system property holding the path of the event log to serve. */
+  static final String EVENT_LOG_PROPERTY = "calendar.eventLog";
+
+  // The number of distinct requests whose answers are kept.
+  private static final int QUERY_CACHE_CAPACITY = 1024;
+  private static final QueryCache QUERY_CACHE = new QueryCache(QUERY_CACHE_CAPACITY);
+
+  private static final CalendarStore STORE = createStore();
+
+  private static volatile AttendeeGroups groups = AttendeeGroups.NONE;
+
+  private CalendarData() {
+    // Disallow instances.
+  }
+
+  private static CalendarStore createStore() {
+    CalendarStore store = new CalendarStore(loadIndex());
+    // Cached answers are dropped after the snapshot that changes them is visible to queries,
+    // including those of requests that name a changed attendee's groups.
+    store.addListener(
+        (snapshot, changedAttendees) -> {
+          Set<String> changed = new HashSet<>(changedAttendees);
+          changed.addAll(groups.groupsContaining(changedAttendees));
+          QUERY_CACHE.invalidate(changed);
+        });
+    return store;
+  }
+
+  private static EventIndex loadIndex() {
+    String eventLog = System.getProperty(EVENT_LOG_PROPERTY);
+    if (eventLog == null) {
+      return new EventIndex(Arrays.asList(Events.events));
+    }
+    try {
+      // Built from the mapped records, so the events themselves are only created when read.
+      return EventIndex.of(EventLog.open(Paths.get(eventLog)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("cannot open event log " + eventLog, e);
+    }
+  }
+
+  /** Returns the current read-only snapshot of all events. */
+  static EventIndex index() {
+    return STORE.snapshot();
+  }
+
+  /** Returns the store that publishes new snapshots of the events. */
+  static CalendarStore store() {
+    return STORE;
+  }
+
+  /** Returns the current attendee groups. */
+  static AttendeeGroups groups() {
+    return groups;
+  }
+
+  /** Replaces the attendee groups, and drops every cached answer since any of them may change. */
+  static void setGroups(AttendeeGroups newGroups) {
+    groups = newGroups;
+    QUERY_CACHE.invalidateAll();
+  }
+
+  /** Returns the cache of query answers over {@link #index}. */
+  static QueryCache queryCache() {
+    return QUERY_CACHE;
+  }
+}
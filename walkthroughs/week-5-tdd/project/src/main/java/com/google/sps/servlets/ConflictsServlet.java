@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.ConflictQuery;
+import com.google.sps.Event;
+import com.google.sps.EventIndex;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Returns the existing events a proposed event would collide with. The body is a JSON object with
+ * the proposed event's {@code when} and {@code attendees}. The answer maps each attendee with a
+ * collision to the events they are already busy with, ordered by start time.
+ */
+@WebServlet("/conflicts")
+public class ConflictsServlet extends HttpServlet {
+  // The conflict query for the most recently seen snapshot. Rebuilding it twice in a race is
+  // harmless.
+  private static volatile Snapshot snapshot;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    ConflictRequest conflictRequest = gson.fromJson(request.getReader(), ConflictRequest.class);
+    if (conflictRequest == null
+        || conflictRequest.when == null
+        || conflictRequest.attendees == null) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "Expected a time range and a list of attendees.");
+      return;
+    }
+
+    Map<String, List<Event>> conflicts =
+        currentQuery().query(conflictRequest.when, conflictRequest.attendees);
+
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(conflicts));
+  }
+
+  /** Returns the conflict query for the current snapshot, building it if the snapshot changed. */
+  private static ConflictQuery currentQuery() {
+    EventIndex index = CalendarData.index();
+    Snapshot current = snapshot;
+    if (current == null || current.index != index) {
+      current = new Snapshot(index);
+      snapshot = current;
+    }
+    return current.query;
+  }
+
+  /** The body of a conflict request. */
+  private static final class ConflictRequest {
+    private TimeRange when;
+    private List<String> attendees;
+  }
+
+  /** A snapshot of the calendar and the conflict query built from it. */
+  private static final class Snapshot {
+    private final EventIndex index;
+    private final ConflictQuery query;
+
+    Snapshot(EventIndex index) {
+      this.index = index;
+      this.query = new ConflictQuery(index.getEvents());
+    }
+  }
+}
@@ -0,0 +1,105 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.Event;
+import com.google.sps.EventIndex;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Changes the calendar. A POST adds, and a DELETE removes, a JSON array of events in the same form
+ * that {@link GetEventsServlet} returns them. Queries keep running against the previous snapshot
+ * until the change is published, and the response is sent once it is.
+ */
+@WebServlet("/events")
+public class EventsServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    List<Event> events = readEvents(request, response);
+    if (events != null) {
+      sendResult(CalendarData.store().add(events), response);
+    }
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    List<Event> events = readEvents(request, response);
+    if (events != null) {
+      sendResult(CalendarData.store().remove(events), response);
+    }
+  }
+
+  /** Reads the events in a request body, or sends an error and returns null if they are invalid. */
+  private static List<Event> readEvents(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    // Convert the JSON to an array of events. Gson does not call the Event constructor, so each
+    // event is rebuilt through it to check its fields.
+    EventBody[] bodies = new Gson().fromJson(request.getReader(), EventBody[].class);
+    if (bodies == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a JSON array of events.");
+      return null;
+    }
+    List<Event> events = new ArrayList<>(bodies.length);
+    try {
+      for (EventBody body : bodies) {
+        if (body == null) {
+          throw new IllegalArgumentException("event cannot be null");
+        }
+        if (body.when != null
+            && (body.when.start() < TimeRange.START_OF_DAY
+                || body.when.duration() < 0
+                || body.when.end() > TimeRange.WHOLE_DAY.end())) {
+          throw new IllegalArgumentException("when must be within the day");
+        }
+        events.add(new Event(body.title, body.when, body.attendees));
+      }
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return null;
+    }
+    return events;
+  }
+
+  private static void sendResult(EventIndex snapshot, HttpServletResponse response)
+      throws IOException {
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(new Result(snapshot.getEvents().size())));
+  }
+
+  /** The JSON form of one event. */
+  private static final class EventBody {
+    private String title;
+    private TimeRange when;
+    private List<String> attendees;
+  }
+
+  /** The JSON form of the calendar after a change. */
+  private static final class Result {
+    private final int eventCount;
+
+    Result(int eventCount) {
+      this.eventCount = eventCount;
+    }
+  }
+}
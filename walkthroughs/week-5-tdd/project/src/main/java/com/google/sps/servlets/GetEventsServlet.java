@@ -15,22 +15,141 @@
 package com.google.sps.servlets;
 
 import com.google.gson.Gson;
-import com.google.sps.Events;
+import com.google.sps.EventIndex;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.GZIPOutputStream;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Returns all events as JSON. The events only change when a new calendar snapshot is published, so
+ * the JSON and a gzipped copy of it are built once per snapshot and served with a strong ETag.
+ * Clients that send a matching {@code If-None-Match} header get a 304 with no body.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  // The payload for the most recently seen snapshot. Rebuilding it twice in a race is harmless.
+  private static volatile Payload payload;
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    Payload current = currentPayload();
+    boolean gzip = acceptsGzip(request.getHeader("Accept-Encoding"));
+    String etag = gzip ? current.gzipEtag : current.etag;
+
+    response.setHeader("ETag", etag);
+    response.setHeader("Vary", "Accept-Encoding");
+    // Let clients cache the events, but make them check with us before using their copy.
+    response.setHeader("Cache-Control", "no-cache");
+    if (matchesAny(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
 
     // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    byte[] body = gzip ? current.gzipJson : current.json;
+    response.setContentType("application/json;charset=UTF-8");
+    if (gzip) {
+      response.setHeader("Content-Encoding", "gzip");
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+
+  /** Returns the payload for the current snapshot, building it if the snapshot has changed. */
+  private static Payload currentPayload() throws IOException {
+    EventIndex index = CalendarData.index();
+    Payload current = payload;
+    if (current == null || current.index != index) {
+      current = new Payload(index);
+      payload = current;
+    }
+    return current;
+  }
+
+  /** Returns whether an Accept-Encoding header allows a gzipped response. */
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.trim().split(";");
+      if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+        continue;
+      }
+      // "gzip;q=0" explicitly refuses gzip.
+      for (int i = 1; i < parts.length; ++i) {
+        String parameter = parts[i].trim().replace(" ", "");
+        if (parameter.matches("q=0(\\.0{0,3})?")) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether an If-None-Match header matches {@code etag}. If-None-Match uses the weak
+   * comparison, so a "W/" prefix on the client's tags is ignored.
+   */
+  private static boolean matchesAny(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String tag : ifNoneMatch.split(",")) {
+      tag = tag.trim();
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals("*") || tag.equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** The serialized events of one snapshot. */
+  private static final class Payload {
+    private final EventIndex index;
+    private final byte[] json;
+    private final byte[] gzipJson;
+    private final String etag;
+    private final String gzipEtag;
+
+    Payload(EventIndex index) throws IOException {
+      this.index = index;
+      this.json = new Gson().toJson(index.getEvents()).getBytes(StandardCharsets.UTF_8);
+
+      ByteArrayOutputStream gzipBytes = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzipStream = new GZIPOutputStream(gzipBytes)) {
+        gzipStream.write(json);
+      }
+      this.gzipJson = gzipBytes.toByteArray();
+
+      // Each representation needs its own strong ETag.
+      String hash = sha256Hex(json);
+      this.etag = "\"" + hash + "\"";
+      this.gzipEtag = "\"" + hash + "-gzip\"";
+    }
+
+    private static String sha256Hex(byte[] bytes) {
+      try {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : MessageDigest.getInstance("SHA-256").digest(bytes)) {
+          hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+      } catch (NoSuchAlgorithmException e) {
+        // Every Java platform is required to support SHA-256.
+        throw new IllegalStateException(e);
+      }
+    }
   }
 }
@@ -0,0 +1,64 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.sps.AttendeeGroups;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reads and replaces the attendee groups that meeting requests may name. The groups are a JSON
+ * object mapping each group's name to its members, which may be people or other groups. A POST
+ * replaces every definition at once.
+ */
+@WebServlet("/groups")
+public class GroupsServlet extends HttpServlet {
+  private static final Type DEFINITIONS_TYPE =
+      new TypeToken<Map<String, List<String>>>() {}.getType();
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(CalendarData.groups().getDefinitions()));
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Map<String, List<String>> definitions =
+        new Gson().fromJson(request.getReader(), DEFINITIONS_TYPE);
+    if (definitions == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a JSON object of groups.");
+      return;
+    }
+
+    AttendeeGroups groups;
+    try {
+      groups = new AttendeeGroups(definitions);
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+    CalendarData.setGroups(groups);
+    doGet(request, response);
+  }
+}
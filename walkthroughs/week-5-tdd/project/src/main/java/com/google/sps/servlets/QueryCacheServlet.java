@@ -0,0 +1,54 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.QueryCache;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/** Reports the state of the query cache used by {@link QueryServlet}. */
+@WebServlet("/admin/query-cache")
+public class QueryCacheServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Stats stats = new Stats(CalendarData.queryCache());
+
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(stats));
+  }
+
+  /** The JSON form of the cache's counters. */
+  private static final class Stats {
+    private final int size;
+    private final int capacity;
+    private final long hits;
+    private final long misses;
+    private final double hitRate;
+    private final long version;
+
+    Stats(QueryCache cache) {
+      this.size = cache.size();
+      this.capacity = cache.capacity();
+      this.hits = cache.hits();
+      this.misses = cache.misses();
+      this.hitRate = hits + misses > 0 ? (double) hits / (hits + misses) : 0;
+      this.version = cache.version();
+    }
+  }
+}
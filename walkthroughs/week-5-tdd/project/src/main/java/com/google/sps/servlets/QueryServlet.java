@@ -15,19 +15,30 @@
 package com.google.sps.servlets;
 
 import com.google.gson.Gson;
-import com.google.sps.Events;
-import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
 import com.google.sps.TimeRange;
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
-@WebServlet("/query")
+/**
+ * Answers meeting requests asynchronously. The container thread only parses the request; the query
+ * runs on the {@link QueryWorkers} pool with its bounded queue, so slow queries cannot tie up every
+ * request thread. When the queue is full, or a query does not finish within {@link
+ * QueryWorkers#QUERY_TIMEOUT_MILLIS}, the client gets a 503 with a Retry-After header right away
+ * instead of waiting.
+ *
+ * <p>Requests may name groups defined through {@link GroupsServlet} in place of their members.
+ */
+@WebServlet(urlPatterns = "/query", asyncSupported = true)
 public class QueryServlet extends HttpServlet {
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
@@ -35,17 +46,75 @@ public class QueryServlet extends HttpServlet {
 
     // Convert the JSON to an instance of MeetingRequest.
     MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    AsyncContext asyncContext = request.startAsync();
+    asyncContext.setTimeout(QueryWorkers.QUERY_TIMEOUT_MILLIS);
+    // Whichever of the worker and the timeout gets here first writes the response.
+    AtomicBoolean responded = new AtomicBoolean();
+    asyncContext.addListener(
+        new AsyncListener() {
+          @Override
+          public void onTimeout(AsyncEvent event) throws IOException {
+            if (responded.compareAndSet(false, true)) {
+              QueryWorkers.sendUnavailable(response);
+              asyncContext.complete();
+            }
+          }
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+          @Override
+          public void onComplete(AsyncEvent event) {}
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+          @Override
+          public void onError(AsyncEvent event) {}
+
+          @Override
+          public void onStartAsync(AsyncEvent event) {}
+        });
+
+    try {
+      QueryWorkers.executor()
+          .execute(
+              () -> {
+                // The client already got a 503 while this query waited in the queue, so nobody is
+                // waiting for the answer. Free the worker for a query that still has a client.
+                if (responded.get()) {
+                  return;
+                }
+                try {
+                  // Find the possible meeting times, reusing the answer to an identical earlier
+                  // request. A query that times out while running is not interrupted: it keeps
+                  // running to the end and its answer is still cached, but it is not sent. The
+                  // snapshot is read inside the cache, after it has noted the attendees' versions,
+                  // so an answer from an outdated snapshot is never served. Attendees may be
+                  // groups.
+                  Collection<TimeRange> answer =
+                      CalendarData.queryCache()
+                          .query(
+                              meetingRequest,
+                              query -> CalendarData.groups().query(CalendarData.index(), query));
+                  if (responded.compareAndSet(false, true)) {
+                    // Send the JSON back as the response
+                    response.setContentType("application/json");
+                    response.getWriter().println(gson.toJson(answer));
+                    asyncContext.complete();
+                  }
+                } catch (IOException | RuntimeException e) {
+                  if (responded.compareAndSet(false, true)) {
+                    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    asyncContext.complete();
+                  }
+                }
+              });
+    } catch (RejectedExecutionException e) {
+      // The queue is full: turn the request away at once.
+      if (responded.compareAndSet(false, true)) {
+        QueryWorkers.sendUnavailable(response);
+        asyncContext.complete();
+      }
+    }
   }
 }
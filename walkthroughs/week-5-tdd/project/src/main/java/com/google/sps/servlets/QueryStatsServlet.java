@@ -0,0 +1,63 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.QueryMetrics;
+import java.io.IOException;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports the per-phase query statistics collected by {@link QueryMetrics}. A POST with an {@code
+ * enabled} parameter turns recording on or off, and one with {@code reset=true} clears the
+ * statistics.
+ */
+@WebServlet("/admin/query-stats")
+public class QueryStatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Stats stats = new Stats(QueryMetrics.isEnabled(), QueryMetrics.snapshot());
+
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(stats));
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String enabled = request.getParameter("enabled");
+    if (enabled != null) {
+      QueryMetrics.setEnabled(Boolean.parseBoolean(enabled));
+    }
+    if (Boolean.parseBoolean(request.getParameter("reset"))) {
+      QueryMetrics.reset();
+    }
+    doGet(request, response);
+  }
+
+  /** The JSON form of the statistics. */
+  private static final class Stats {
+    private final boolean enabled;
+    private final Map<QueryMetrics.Metric, QueryMetrics.Snapshot> metrics;
+
+    Stats(boolean enabled, Map<QueryMetrics.Metric, QueryMetrics.Snapshot> metrics) {
+      this.enabled = enabled;
+      this.metrics = metrics;
+    }
+  }
+}
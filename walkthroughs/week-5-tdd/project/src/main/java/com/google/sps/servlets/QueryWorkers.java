@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * The worker pools of the servlets that answer meeting queries. Single queries share a pool with
+ * one worker per processor and a bounded queue: when the queue is full, new queries are rejected
+ * instead of piling up. Batches of queries run on a separate ForkJoin pool, which admits at most
+ * {@value #BATCH_QUERY_LIMIT} pending queries, so that one large batch neither fills the queue of
+ * single queries nor is turned away by it. The pools are shut down with the web application.
+ */
+@WebListener
+public class QueryWorkers implements ServletContextListener {
+  /** The number of queries that may wait for a worker before new ones are turned away. */
+  static final int QUEUE_LIMIT = 64;
+  /** The number of batched queries that may be pending before new batches are turned away. */
+  static final int BATCH_QUERY_LIMIT = 2048;
+  /** How long a query may take, including its time in the queue. */
+  static final long QUERY_TIMEOUT_MILLIS = 5000;
+  // How long clients that were turned away should wait before trying again.
+  private static final String RETRY_AFTER_SECONDS = "1";
+
+  private static final ThreadPoolExecutor EXECUTOR = createExecutor();
+  private static final ForkJoinPool BATCH_POOL = createBatchPool();
+  // One permit per batched query that may still be pending.
+  private static final Semaphore BATCH_PERMITS = new Semaphore(BATCH_QUERY_LIMIT);
+
+  private static ThreadPoolExecutor createExecutor() {
+    int workers = Runtime.getRuntime().availableProcessors();
+    AtomicInteger threadCount = new AtomicInteger();
+    return new ThreadPoolExecutor(
+        workers,
+        workers,
+        0,
+        TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(QUEUE_LIMIT),
+        runnable -> {
+          Thread thread = new Thread(runnable, "query-" + threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  private static ForkJoinPool createBatchPool() {
+    AtomicInteger threadCount = new AtomicInteger();
+    return new ForkJoinPool(
+        Runtime.getRuntime().availableProcessors(),
+        pool -> {
+          ForkJoinWorkerThread thread =
+              ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+          thread.setName("batch-query-" + threadCount.incrementAndGet());
+          return thread;
+        },
+        null,
+        false);
+  }
+
+  /** Returns the shared pool. Its {@code execute} and {@code submit} throw when it is full. */
+  static ThreadPoolExecutor executor() {
+    return EXECUTOR;
+  }
+
+  /**
+   * Returns the pool for batched queries. Callers must reserve room for their queries with {@link
+   * #tryAdmitBatch} first.
+   */
+  static ForkJoinPool batchPool() {
+    return BATCH_POOL;
+  }
+
+  /**
+   * Reserves room for {@code size} batched queries. Returns false, without reserving anything, if
+   * that would exceed {@link #BATCH_QUERY_LIMIT}.
+   */
+  static boolean tryAdmitBatch(int size) {
+    return BATCH_PERMITS.tryAcquire(size);
+  }
+
+  /** Releases the room of one batched query once it is finished or skipped. */
+  static void finishBatchQuery() {
+    BATCH_PERMITS.release();
+  }
+
+  /** Tells the client that the server is too busy and when to try again. */
+  static void sendUnavailable(HttpServletResponse response) throws IOException {
+    response.setHeader("Retry-After", RETRY_AFTER_SECONDS);
+    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Too many queries.");
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    EXECUTOR.shutdownNow();
+    BATCH_POOL.shutdownNow();
+  }
+}
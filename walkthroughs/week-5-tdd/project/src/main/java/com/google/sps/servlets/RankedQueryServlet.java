@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.MeetingRequest;
+import com.google.sps.RankedSlotQuery;
+import com.google.sps.SlotPreferences;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Returns only the best few slots for a meeting. The body is a JSON object holding the meeting
+ * {@code request}, optional {@code preferences} and the maximum number of slots, {@code limit},
+ * which may be at most {@value #MAX_LIMIT}. Attendees may name groups, which stand for their
+ * members.
+ */
+@WebServlet("/ranked-query")
+public class RankedQueryServlet extends HttpServlet {
+  private static final int DEFAULT_LIMIT = 3;
+  // The largest limit a client may ask for.
+  static final int MAX_LIMIT = 100;
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to an instance of RankedQuery.
+    RankedQuery rankedQuery = gson.fromJson(request.getReader(), RankedQuery.class);
+    if (rankedQuery == null || rankedQuery.request == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request.");
+      return;
+    }
+    SlotPreferences preferences =
+        rankedQuery.preferences != null ? rankedQuery.preferences : new SlotPreferences();
+    int limit = rankedQuery.limit != null ? rankedQuery.limit : DEFAULT_LIMIT;
+    if (limit < 1 || limit > MAX_LIMIT) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "limit must be between 1 and " + MAX_LIMIT + ".");
+      return;
+    }
+
+    // Find the best meeting times, for the members of any groups in the request.
+    List<TimeRange> answer =
+        new RankedSlotQuery()
+            .query(
+                CalendarData.index(),
+                CalendarData.groups().expand(rankedQuery.request),
+                preferences,
+                limit);
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(answer));
+  }
+
+  /** The body of a ranked query. */
+  private static final class RankedQuery {
+    private MeetingRequest request;
+    private SlotPreferences preferences;
+    private Integer limit;
+  }
+}
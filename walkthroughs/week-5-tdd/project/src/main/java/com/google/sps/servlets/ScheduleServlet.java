@@ -0,0 +1,61 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.AttendeeGroups;
+import com.google.sps.MeetingRequest;
+import com.google.sps.MeetingScheduler;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Places a JSON array of related meetings so that none of them collide. Attendees may name groups,
+ * which stand for their members. The answer holds the slot of each meeting in request order,
+ * whether the slots also suit the optional attendees, and the number of search nodes and the time
+ * taken.
+ */
+@WebServlet("/schedule")
+public class ScheduleServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to an array of MeetingRequests.
+    MeetingRequest[] meetingRequests = gson.fromJson(request.getReader(), MeetingRequest[].class);
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a JSON array of requests.");
+      return;
+    }
+
+    // Replace groups by their members, so that meetings sharing a member are kept apart.
+    AttendeeGroups groups = CalendarData.groups();
+    List<MeetingRequest> expanded = new ArrayList<>(meetingRequests.length);
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      expanded.add(groups.expand(meetingRequest));
+    }
+
+    MeetingScheduler.Schedule schedule =
+        new MeetingScheduler().schedule(CalendarData.index(), expanded);
+
+    response.setContentType("application/json");
+    response.getWriter().println(gson.toJson(schedule));
+  }
+}
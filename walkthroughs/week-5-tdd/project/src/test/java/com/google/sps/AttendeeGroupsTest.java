@@ -0,0 +1,156 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeGroupsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final String TEAM = "team";
+  private static final String ORG = "org";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void nestedGroupsAreFlattened() {
+    Map<String, List<String>> definitions = new HashMap<>();
+    definitions.put(ORG, Arrays.asList(TEAM, PERSON_C));
+    definitions.put(TEAM, Arrays.asList(PERSON_B, PERSON_A));
+    AttendeeGroups groups = new AttendeeGroups(definitions);
+
+    Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_B, PERSON_C), groups.members(ORG));
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(PERSON_A, PERSON_B, PERSON_C)),
+        groups.expand(Arrays.asList(TEAM, PERSON_C)));
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(TEAM, ORG)), groups.groupsContaining(Arrays.asList(PERSON_A)));
+  }
+
+  @Test
+  public void requestsAreExpandedInBothAttendeeLists() {
+    Map<String, List<String>> definitions = new HashMap<>();
+    definitions.put(TEAM, Arrays.asList(PERSON_A, PERSON_B));
+    AttendeeGroups groups = new AttendeeGroups(definitions);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 30);
+    request.addOptionalAttendee(TEAM);
+    request.addOptionalAttendee(PERSON_C);
+
+    MeetingRequest expanded = groups.expand(request);
+
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(PERSON_A)), new HashSet<>(expanded.getAttendees()));
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(PERSON_B, PERSON_C)),
+        new HashSet<>(expanded.getOptionalAttendees()));
+    Assert.assertEquals(30, expanded.getDuration());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void cyclesAreRejected() {
+    Map<String, List<String>> definitions = new HashMap<>();
+    definitions.put(ORG, Arrays.asList(TEAM));
+    definitions.put(TEAM, Arrays.asList(PERSON_A, ORG));
+    new AttendeeGroups(definitions);
+  }
+
+  @Test
+  public void unionIsReusedUntilAMemberChanges() {
+    AttendeeGroups groups =
+        new AttendeeGroups(Collections.singletonMap(TEAM, Arrays.asList(PERSON_A, PERSON_B)));
+    Event meeting =
+        new Event(
+            "Meeting",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A, PERSON_B));
+    EventIndex index = new EventIndex(Arrays.asList(meeting));
+    long[] union = groups.union(index, TEAM);
+
+    EventIndex unrelatedChange =
+        index.withChanges(
+            Arrays.asList(new Event("Other", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C))),
+            Collections.<Event>emptyList());
+    EventIndex memberChange =
+        unrelatedChange.withChanges(Collections.<Event>emptyList(), Arrays.asList(meeting));
+
+    Assert.assertSame(union, groups.union(unrelatedChange, TEAM));
+    Assert.assertEquals(0, groups.union(memberChange, TEAM).length);
+  }
+
+  @Test
+  public void matchesExpandedRequestOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 25, /* people= */ 12);
+    Random random = new Random(25);
+    Map<String, List<String>> definitions = new HashMap<>();
+    for (int group = 0; group < 4; ++group) {
+      definitions.put("group " + group, new ArrayList<>(calendar.attendees(1 + group * 2)));
+    }
+    // One group that contains two others.
+    definitions.get("group 3").addAll(Arrays.asList("group 0", "group 1"));
+    AttendeeGroups groups = new AttendeeGroups(definitions);
+
+    List<Event> events = new ArrayList<>(calendar.events(30));
+    EventIndex index = new EventIndex(events);
+    for (int round = 0; round < 300; ++round) {
+      // Change one person's calendar now and then, so that some cached unions go stale.
+      if (round % 10 == 0) {
+        Event removed = events.remove(random.nextInt(events.size()));
+        List<Event> added = calendar.events(1);
+        events.addAll(added);
+        index = index.withChanges(added, Arrays.asList(removed));
+      }
+      MeetingRequest request = new MeetingRequest(names(random, 1 + round % 3), 15 * (round % 5));
+      for (String optional : names(random, round % 3)) {
+        request.addOptionalAttendee(optional);
+      }
+      MeetingRequest expanded =
+          new MeetingRequest(groups.expand(request.getAttendees()), request.getDuration());
+      for (String optional : groups.expand(request.getOptionalAttendees())) {
+        expanded.addOptionalAttendee(optional);
+      }
+
+      Assert.assertEquals(index.query(expanded), groups.query(index, request));
+    }
+  }
+
+  /** Returns a random mix of people and groups. */
+  private static Collection<String> names(Random random, int count) {
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      names.add(
+          random.nextBoolean()
+              ? "group " + random.nextInt(4)
+              : RandomCalendar.person(random.nextInt(12)));
+    }
+    return names;
+  }
+}
@@ -0,0 +1,139 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeSetTest {
+  private static final String PERSON_A = "AttendeeSetTest A";
+  private static final String PERSON_B = "AttendeeSetTest B";
+  private static final String PERSON_C = "AttendeeSetTest C";
+
+  @Test
+  public void internedNamesIntersect() {
+    AttendeeIds dictionary = new AttendeeIds(AttendeeIds.CAPACITY);
+    AttendeeSet event = AttendeeSet.intern(Arrays.asList(PERSON_A, PERSON_B), dictionary);
+
+    Assert.assertTrue(
+        event.intersects(AttendeeSet.lookup(Arrays.asList(PERSON_B, PERSON_C), dictionary)));
+    Assert.assertFalse(event.intersects(AttendeeSet.lookup(Arrays.asList(PERSON_C), dictionary)));
+  }
+
+  @Test
+  public void unknownNamesAreLeftOut() {
+    AttendeeIds dictionary = new AttendeeIds(AttendeeIds.CAPACITY);
+    AttendeeSet request = AttendeeSet.lookup(Arrays.asList("AttendeeSetTest nobody"), dictionary);
+
+    Assert.assertSame(AttendeeSet.EMPTY, request);
+    Assert.assertEquals(AttendeeIds.UNKNOWN, dictionary.lookup("AttendeeSetTest nobody"));
+  }
+
+  @Test
+  public void buildingEventsAndIndexesInternsNothing() {
+    Collection<String> names = Arrays.asList("AttendeeSetTest posted", "AttendeeSetTest asked");
+    new Event("Posted", TimeRange.fromStartDuration(0, 30), names);
+    new GapIndex(names);
+
+    for (String name : names) {
+      Assert.assertEquals(AttendeeIds.UNKNOWN, AttendeeIds.current().lookup(name));
+    }
+  }
+
+  @Test
+  public void eventsReinternIntoNewDictionaries() {
+    Event event =
+        new Event("Meeting", TimeRange.fromStartDuration(0, 30), Arrays.asList(PERSON_A, PERSON_B));
+    AttendeeIds full = new AttendeeIds(1);
+    AttendeeIds next = new AttendeeIds(1);
+
+    AttendeeSet first = event.getAttendeeSet(full);
+    Assert.assertTrue(full.isFull());
+    Assert.assertSame(first, event.getAttendeeSet(full));
+
+    AttendeeSet second = event.getAttendeeSet(next);
+    Assert.assertNotSame(first, second);
+    Assert.assertTrue(second.intersects(AttendeeSet.lookup(Arrays.asList(PERSON_B), next)));
+    Assert.assertEquals(2, next.size());
+  }
+
+  @Test
+  public void olderDictionariesDoNotEvictNewerSets() {
+    Event event = new Event("Meeting", TimeRange.fromStartDuration(0, 30), Arrays.asList(PERSON_A));
+    AttendeeIds older = new AttendeeIds(AttendeeIds.CAPACITY);
+    AttendeeIds newer = new AttendeeIds(AttendeeIds.CAPACITY);
+
+    AttendeeSet newerSet = event.getAttendeeSet(newer);
+    AttendeeSet olderSet = event.getAttendeeSet(older);
+
+    Assert.assertTrue(olderSet.belongsTo(older));
+    Assert.assertSame(newerSet, event.getAttendeeSet(newer));
+  }
+
+  @Test
+  public void lookupsSeeNamesInternedAfterThem() {
+    AttendeeIds dictionary = new AttendeeIds(AttendeeIds.CAPACITY);
+    AttendeeSet.Lookup request = new AttendeeSet.Lookup(Arrays.asList(PERSON_B), dictionary);
+    Assert.assertSame(AttendeeSet.EMPTY, request.get());
+
+    AttendeeSet event = AttendeeSet.intern(Arrays.asList(PERSON_A, PERSON_B), dictionary);
+
+    Assert.assertTrue(event.intersects(request.get()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void setsFromDifferentDictionariesCannotBeCompared() {
+    AttendeeSet a =
+        AttendeeSet.intern(Collections.singleton(PERSON_A), new AttendeeIds(AttendeeIds.CAPACITY));
+    AttendeeSet b =
+        AttendeeSet.intern(Collections.singleton(PERSON_A), new AttendeeIds(AttendeeIds.CAPACITY));
+
+    a.intersects(b);
+  }
+
+  @Test
+  public void largeIdsIntersectByMerge() {
+    // Intern enough names that some of the IDs cannot be held in the bitmask.
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 200; ++i) {
+      names.add("AttendeeSetTest person " + i);
+    }
+    AttendeeIds dictionary = new AttendeeIds(AttendeeIds.CAPACITY);
+    AttendeeSet all = AttendeeSet.intern(names, dictionary);
+    List<String> odd = new ArrayList<>();
+    List<String> even = new ArrayList<>();
+    for (int i = 0; i < names.size(); ++i) {
+      (i % 2 == 0 ? even : odd).add(names.get(i));
+    }
+    AttendeeSet evens = AttendeeSet.lookup(even, dictionary);
+    AttendeeSet odds = AttendeeSet.lookup(odd, dictionary);
+    AttendeeSet last = AttendeeSet.lookup(names.subList(199, 200), dictionary);
+
+    Assert.assertTrue(dictionary.lookup(names.get(199)) >= 64);
+    Assert.assertTrue(all.intersects(last));
+    Assert.assertTrue(last.intersects(odds));
+    Assert.assertFalse(evens.intersects(odds));
+    Assert.assertFalse(last.intersects(evens));
+  }
+}
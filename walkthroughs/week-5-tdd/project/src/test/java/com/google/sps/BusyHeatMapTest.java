@@ -0,0 +1,109 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class BusyHeatMapTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0910AM = TimeRange.getTimeInMinutes(9, 10);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int END = TimeRange.WHOLE_DAY.end();
+
+  private EventIndex index;
+
+  @Before
+  public void setUp() {
+    // Events  :       |--A--|
+    //                 |--A--|        (double-booked, counted once)
+    //                    |----B----|
+    // Day     : |---------------------------|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_0910AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)));
+    index = new EventIndex(events);
+  }
+
+  @Test
+  public void duplicateAttendeesAreCountedOnce() {
+    BusyHeatMap heatMap = new BusyHeatMap(index, Arrays.asList(PERSON_A, PERSON_A, PERSON_B));
+
+    Assert.assertEquals(1, heatMap.busyAt(TIME_0900AM));
+    Assert.assertEquals(2, heatMap.busyAt(TIME_0910AM));
+    Assert.assertEquals(1, heatMap.busyAt(TIME_0930AM));
+  }
+
+  @Test
+  public void countsEachBusyPersonOnce() {
+    BusyHeatMap heatMap = new BusyHeatMap(index, Arrays.asList(PERSON_A, PERSON_B, PERSON_C));
+
+    List<BusyHeatMap.Run> expected =
+        Arrays.asList(
+            new BusyHeatMap.Run(0, TIME_0900AM, 0),
+            new BusyHeatMap.Run(TIME_0900AM, TIME_0910AM, 1),
+            new BusyHeatMap.Run(TIME_0910AM, TIME_0930AM, 2),
+            new BusyHeatMap.Run(TIME_0930AM, TIME_1000AM, 1),
+            new BusyHeatMap.Run(TIME_1000AM, END, 0));
+
+    Assert.assertEquals(expected, heatMap.runs(1));
+    Assert.assertEquals(2, heatMap.busyAt(TIME_0910AM));
+  }
+
+  @Test
+  public void bucketsShowTheirBusiestMinute() {
+    BusyHeatMap heatMap = new BusyHeatMap(index, Arrays.asList(PERSON_A, PERSON_B));
+
+    List<BusyHeatMap.Run> expected =
+        Arrays.asList(
+            new BusyHeatMap.Run(0, TIME_0900AM, 0),
+            new BusyHeatMap.Run(TIME_0900AM, TIME_0930AM, 2),
+            new BusyHeatMap.Run(TIME_0930AM, TIME_1000AM, 1),
+            new BusyHeatMap.Run(TIME_1000AM, END, 0));
+
+    Assert.assertEquals(expected, heatMap.runs(30));
+  }
+
+  @Test
+  public void emptyGroupIsOneFreeRun() {
+    BusyHeatMap heatMap = new BusyHeatMap(index, Arrays.<String>asList());
+
+    Assert.assertEquals(Arrays.asList(new BusyHeatMap.Run(0, END, 0)), heatMap.runs(60));
+  }
+}
@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private static final Event MEETING =
+      new Event(
+          "Meeting",
+          TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+          Arrays.asList(PERSON_A));
+
+  @Test
+  public void readersKeepTheirSnapshot() {
+    CalendarStore store = new CalendarStore(new EventIndex(Arrays.<Event>asList()));
+    EventIndex before = store.snapshot();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    EventIndex after = store.add(Arrays.asList(MEETING));
+
+    Assert.assertSame(after, store.snapshot());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), before.query(request));
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)),
+        after.query(request));
+  }
+
+  @Test
+  public void removeUndoesAdd() {
+    CalendarStore store = new CalendarStore(new EventIndex(Arrays.<Event>asList()));
+    List<Set<String>> changes = new ArrayList<>();
+    store.addListener((snapshot, changedAttendees) -> changes.add(changedAttendees));
+
+    store.add(Arrays.asList(MEETING));
+    EventIndex snapshot = store.remove(Arrays.asList(MEETING));
+
+    Assert.assertEquals(Collections.<Event>emptyList(), snapshot.getEvents());
+    Assert.assertEquals(
+        Arrays.asList(Collections.singleton(PERSON_A), Collections.singleton(PERSON_A)), changes);
+    Assert.assertEquals(2, store.publications());
+  }
+
+  @Test
+  public void concurrentWritesAreAllPublished() throws Exception {
+    CalendarStore store = new CalendarStore(new EventIndex(Arrays.<Event>asList()));
+    int writers = 8;
+    int writesPerWriter = 50;
+    ExecutorService executor = Executors.newFixedThreadPool(writers);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int writer = 0; writer < writers; ++writer) {
+      String attendee = writer % 2 == 0 ? PERSON_A : PERSON_B;
+      String title = "Writer " + writer;
+      futures.add(
+          executor.submit(
+              () -> {
+                start.await();
+                for (int i = 0; i < writesPerWriter; ++i) {
+                  Event event =
+                      new Event(
+                          title + " event " + i,
+                          TimeRange.fromStartDuration(i, 1),
+                          Arrays.asList(attendee));
+                  EventIndex snapshot = store.add(Arrays.asList(event));
+                  // A write returns only once its change is visible.
+                  Assert.assertTrue(snapshot.getEvents().contains(event));
+                }
+                return null;
+              }));
+    }
+    start.countDown();
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    Assert.assertEquals(writers * writesPerWriter, store.snapshot().getEvents().size());
+    Assert.assertEquals(
+        writers * writesPerWriter, new HashSet<>(store.snapshot().getEvents()).size());
+    Assert.assertTrue(store.publications() <= writers * writesPerWriter);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void nullChangesAreRejected() {
+    new CalendarStore(new EventIndex(Arrays.<Event>asList())).add(null);
+  }
+}
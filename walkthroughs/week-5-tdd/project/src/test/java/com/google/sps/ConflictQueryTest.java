@@ -0,0 +1,149 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ConflictQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  @Test
+  public void findsConflictsPerAttendee() {
+    // Events  : |--A--|
+    //               |---A,B---|
+    //                         |--B--|
+    // Proposed:       |---|
+    Event early =
+        new Event(
+            "Early",
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A));
+    Event shared =
+        new Event(
+            "Shared",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A, PERSON_B));
+    Event late =
+        new Event(
+            "Late",
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_B));
+    ConflictQuery query = new ConflictQuery(Arrays.asList(late, shared, early));
+
+    Map<String, List<Event>> actual =
+        query.query(
+            TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B, PERSON_A, PERSON_C));
+
+    Map<String, List<Event>> expected = new LinkedHashMap<>();
+    expected.put(PERSON_B, Arrays.asList(shared));
+    expected.put(PERSON_A, Arrays.asList(shared));
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Arrays.asList(PERSON_B, PERSON_A), new ArrayList<>(actual.keySet()));
+  }
+
+  @Test
+  public void touchingEventsDoNotConflict() {
+    Event event =
+        new Event(
+            "Event",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A));
+    ConflictQuery query = new ConflictQuery(Arrays.asList(event));
+
+    Assert.assertEquals(
+        Collections.emptyMap(),
+        query.query(
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false), Arrays.asList(PERSON_A)));
+    Assert.assertEquals(
+        Collections.singletonMap(PERSON_A, Arrays.asList(event)),
+        query.query(
+            new Event(
+                "Proposed",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM + 1, false),
+                Arrays.asList(PERSON_A))));
+  }
+
+  @Test
+  public void matchesLinearScanOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 24, /* people= */ 6);
+    Random random = new Random(24);
+
+    for (int round = 0; round < 300; ++round) {
+      List<Event> events = calendar.events(round % 80);
+      ConflictQuery query = new ConflictQuery(events);
+      Collection<String> attendees = calendar.attendees(1 + round % 4);
+      int start = random.nextInt(TimeRange.WHOLE_DAY.end());
+      int end = start + random.nextInt(Integer.min(240, TimeRange.WHOLE_DAY.end() - start + 1));
+      TimeRange when = TimeRange.fromStartEnd(start, end, false);
+
+      Map<String, List<Event>> actual = query.query(when, attendees);
+
+      Map<String, List<Event>> expected = new HashMap<>();
+      for (String attendee : attendees) {
+        List<Event> overlapping = new ArrayList<>();
+        for (Event event : events) {
+          if (event.getAttendees().contains(attendee) && event.getWhen().overlaps(when)) {
+            overlapping.add(event);
+          }
+        }
+        if (!overlapping.isEmpty()) {
+          expected.put(attendee, sorted(overlapping));
+        }
+      }
+      Map<String, List<Event>> actualSorted = new HashMap<>();
+      for (Map.Entry<String, List<Event>> entry : actual.entrySet()) {
+        actualSorted.put(entry.getKey(), sorted(entry.getValue()));
+        assertOrderedByStart(entry.getValue());
+      }
+      Assert.assertEquals(expected, actualSorted);
+    }
+  }
+
+  /** Returns the events in an order that does not depend on how they were found. */
+  private static List<Event> sorted(List<Event> events) {
+    List<Event> sorted = new ArrayList<>(events);
+    sorted.sort((a, b) -> (a.getWhen() + a.getTitle()).compareTo(b.getWhen() + b.getTitle()));
+    return sorted;
+  }
+
+  private static void assertOrderedByStart(List<Event> events) {
+    for (int i = 1; i < events.size(); ++i) {
+      Assert.assertTrue(events.get(i - 1).getWhen().start() <= events.get(i).getWhen().start());
+    }
+  }
+}
@@ -0,0 +1,182 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void onlyRequestedAttendeesAreConsidered() {
+    // Events  :       |--A--|     |--C--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |-----2-----------|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_C)));
+    EventIndex index = new EventIndex(events);
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = index.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void sharedEventsAreMergedAcrossAttendees() {
+    // Events  :       |--A B--|
+    //                     |--B--|
+    // Day     : |---------------------|
+    // Options : |--1--|         |--2--|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A, PERSON_B)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+                Arrays.asList(PERSON_B)));
+    EventIndex index = new EventIndex(events);
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = index.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesFindMeetingQueryOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 7, /* people= */ 12);
+    FindMeetingQuery reference = new FindMeetingQuery();
+
+    for (int round = 0; round < 500; ++round) {
+      List<Event> events = calendar.events(round % 60);
+      EventIndex index = new EventIndex(events);
+      MeetingRequest request = calendar.request(4, 4);
+
+      Assert.assertEquals(reference.query(events, request), index.query(request));
+    }
+  }
+
+  @Test
+  public void bitmapModeMatchesFindMeetingQueryOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 11, /* people= */ 12);
+    FindMeetingQuery reference = new FindMeetingQuery();
+
+    for (int round = 0; round < 500; ++round) {
+      List<Event> events = calendar.events(round % 60, /* allowEmpty= */ false);
+      EventIndex index = new EventIndex(events);
+      MeetingRequest request = calendar.request(4, 4);
+
+      Assert.assertEquals(reference.query(events, request), index.queryBitmap(request));
+    }
+  }
+
+  @Test
+  public void withChangesKeepsEventsWithoutAttendeesAndIgnoresUnknownOnes() {
+    Event meeting =
+        new Event(
+            "Event 1",
+            TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A));
+    Event reminder =
+        new Event(
+            "Event 2",
+            TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.<String>asList());
+    Event added =
+        new Event(
+            "Event 3",
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B));
+    Event unknown =
+        new Event(
+            "Event 4",
+            TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A));
+    EventIndex index = new EventIndex(Arrays.asList(meeting, reminder));
+
+    EventIndex changed =
+        index.withChanges(Arrays.asList(added, reminder), Arrays.asList(reminder, unknown));
+
+    Assert.assertEquals(Arrays.asList(meeting, added, reminder), changed.getEvents());
+    Assert.assertSame(index.busyOf(PERSON_A), changed.busyOf(PERSON_A));
+    Assert.assertEquals(Arrays.asList(meeting, reminder), index.getEvents());
+  }
+
+  @Test
+  public void withChangesMatchesRebuiltIndexOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 23, /* people= */ 12);
+    Random random = new Random(23);
+    List<Event> events = new ArrayList<>();
+    EventIndex index = new EventIndex(events);
+
+    for (int round = 0; round < 300; ++round) {
+      List<Event> removed = new ArrayList<>();
+      for (int i = random.nextInt(3); i > 0 && !events.isEmpty(); --i) {
+        removed.add(events.remove(random.nextInt(events.size())));
+      }
+      List<Event> added = calendar.events(random.nextInt(4));
+      events.addAll(added);
+      index = index.withChanges(added, removed);
+      MeetingRequest request = calendar.request(3, 2);
+
+      Assert.assertEquals(new EventIndex(events).query(request), index.query(request));
+      Assert.assertEquals(new EventIndex(events).queryBitmap(request), index.queryBitmap(request));
+      Assert.assertEquals(events.size(), index.getEvents().size());
+    }
+  }
+}
@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventListTest {
+  @Test
+  public void matchesChangesAppliedOneByOne() {
+    Random random = new Random(23);
+    // A small pool, so that equal events are added and removed again and again.
+    List<Event> pool = new ArrayList<>();
+    for (int i = 0; i < 6; ++i) {
+      pool.add(
+          new Event(
+              "Event " + i,
+              TimeRange.fromStartDuration(i * 60, 30),
+              Arrays.asList("Person " + (i % 3))));
+    }
+
+    List<Event> expected = new ArrayList<>(pool);
+    EventList list = new EventList(new ArrayList<>(pool));
+    List<EventList> older = new ArrayList<>();
+    List<List<Event>> olderExpected = new ArrayList<>();
+    for (int round = 0; round < 500; ++round) {
+      List<Event> removed = new ArrayList<>();
+      for (int i = random.nextInt(3); i > 0 && !expected.isEmpty(); --i) {
+        Event event = expected.get(random.nextInt(expected.size()));
+        expected.remove(event);
+        removed.add(event);
+      }
+      List<Event> added = new ArrayList<>();
+      for (int i = random.nextInt(3); i > 0; --i) {
+        added.add(pool.get(random.nextInt(pool.size())));
+      }
+      expected.addAll(added);
+      list = list.withChanges(added, removed);
+      older.add(list);
+      olderExpected.add(new ArrayList<>(expected));
+
+      Assert.assertEquals(expected.size(), list.size());
+      if (round % 7 == 0) {
+        Assert.assertEquals(expected, list.events());
+      }
+    }
+    // Lists derived from each other stay unchanged.
+    for (int i = 0; i < older.size(); ++i) {
+      Assert.assertEquals(olderExpected.get(i), older.get(i).events());
+    }
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventLogTest {
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void eventsRoundTrip() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.log");
+    List<Event> events = Arrays.asList(Events.events);
+    try (EventLogWriter writer = new EventLogWriter(path)) {
+      for (Event event : events) {
+        writer.append(event);
+      }
+    }
+
+    Assert.assertEquals(events, EventLog.open(path).events());
+  }
+
+  @Test
+  public void reopeningAppendsToTheStringTable() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.log");
+    Event first = new Event("Event 1", TimeRange.fromStartDuration(0, 30), Arrays.asList("A"));
+    Event second =
+        new Event("Event 2", TimeRange.fromStartDuration(60, 30), Arrays.asList("A", "B"));
+    try (EventLogWriter writer = new EventLogWriter(path)) {
+      writer.append(first);
+    }
+    try (EventLogWriter writer = new EventLogWriter(path)) {
+      writer.append(second);
+    }
+
+    EventLog log = EventLog.open(path);
+    Assert.assertEquals(Arrays.asList(first, second), log.events());
+    // "A" is only stored once.
+    Assert.assertEquals(4, log.stringCount());
+  }
+
+  @Test
+  public void incompleteRecordIsIgnoredAndOverwritten() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.log");
+    Event first = new Event("Event 1", TimeRange.fromStartDuration(0, 30), Arrays.asList("A"));
+    Event second = new Event("Event 2", TimeRange.fromStartDuration(60, 30), Arrays.asList("B"));
+    try (EventLogWriter writer = new EventLogWriter(path)) {
+      writer.append(first);
+      writer.append(second);
+    }
+    // Cut the last record short, as a crash during an append would.
+    File file = path.toFile();
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.setLength(raw.length() - 2);
+    }
+    Assert.assertEquals(Arrays.asList(first), EventLog.open(path).events());
+
+    try (EventLogWriter writer = new EventLogWriter(path)) {
+      writer.append(second);
+    }
+    Assert.assertEquals(Arrays.asList(first, second), EventLog.open(path).events());
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsOtherFiles() throws IOException {
+    File file = folder.newFile("not-a-log");
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.writeLong(42);
+    }
+    EventLog.open(file.toPath());
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsUnknownStringIds() throws IOException {
+    byte[] name = "A".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    buffer.putInt(EventLog.MAGIC).putInt(EventLog.VERSION);
+    buffer.put(EventLog.STRING_RECORD).putInt(name.length).put(name);
+    // An event whose only attendee is string 7, when the table only has string 0.
+    buffer.put(EventLog.EVENT_RECORD).putInt(0).putInt(30).putInt(0).putInt(1).putInt(7);
+    Path path = folder.getRoot().toPath().resolve("corrupt.log");
+    Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+
+    EventLog.open(path);
+  }
+
+  @Test(expected = IOException.class)
+  public void rejectsEventsOutsideTheDay() throws IOException {
+    byte[] name = "A".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocate(64);
+    buffer.putInt(EventLog.MAGIC).putInt(EventLog.VERSION);
+    buffer.put(EventLog.STRING_RECORD).putInt(name.length).put(name);
+    // An event that ends before it starts.
+    buffer.put(EventLog.EVENT_RECORD).putInt(600).putInt(540).putInt(0).putInt(1).putInt(0);
+    Path path = folder.getRoot().toPath().resolve("corrupt.log");
+    Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+
+    EventLog.open(path);
+  }
+
+  @Test
+  public void recordsLargerThanTheBufferRoundTrip() throws IOException {
+    Path path = folder.getRoot().toPath().resolve("events.log");
+    List<String> crowd = new ArrayList<>();
+    for (int i = 0; i < 20000; ++i) {
+      crowd.add("Person " + i);
+    }
+    List<Event> events = new ArrayList<>();
+    events.add(new Event("All hands", TimeRange.fromStartDuration(0, 60), crowd));
+    for (int i = 0; i < 100; ++i) {
+      events.add(
+          new Event("Event " + i, TimeRange.fromStartDuration(i, 30), crowd.subList(i, i + 2)));
+    }
+    try (EventLogWriter writer = new EventLogWriter(path)) {
+      for (Event event : events) {
+        writer.append(event);
+      }
+    }
+
+    Assert.assertEquals(events, EventLog.open(path).events());
+  }
+
+  @Test
+  public void indexOfLogMatchesIndexOfEventsOnRandomCalendars() throws IOException {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 12, /* people= */ 12);
+
+    for (int round = 0; round < 50; ++round) {
+      List<Event> events = calendar.events(round % 60, /* allowEmpty= */ true);
+      Path path = folder.getRoot().toPath().resolve("events-" + round + ".log");
+      try (EventLogWriter writer = new EventLogWriter(path)) {
+        for (Event event : events) {
+          writer.append(event);
+        }
+      }
+      EventIndex expected = new EventIndex(events);
+      EventIndex index = EventIndex.of(EventLog.open(path));
+
+      Assert.assertEquals(events, index.getEvents());
+      for (int i = 0; i < 5; ++i) {
+        MeetingRequest request = calendar.request(4, 4);
+        Assert.assertEquals(expected.query(request), index.query(request));
+      }
+    }
+  }
+
+  @Test
+  public void queryMatchesFindMeetingQueryOnRandomCalendars() throws IOException {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 11, /* people= */ 12);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    for (int round = 0; round < 100; ++round) {
+      List<Event> events = calendar.events(round % 60, /* allowEmpty= */ true);
+      Path path = folder.getRoot().toPath().resolve("events-" + round + ".log");
+      try (EventLogWriter writer = new EventLogWriter(path)) {
+        for (Event event : events) {
+          writer.append(event);
+        }
+      }
+      EventLog log = EventLog.open(path);
+
+      for (int i = 0; i < 5; ++i) {
+        MeetingRequest request = calendar.request(4, 4);
+        Assert.assertEquals(query.query(events, request), query.query(log, request));
+      }
+    }
+  }
+}
@@ -497,4 +497,18 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void parallelPathMatchesSerialPath() {
+    // A tiny threshold forces the events to be split across many ForkJoin tasks.
+    FindMeetingQuery parallelQuery = new FindMeetingQuery(/* parallelThreshold= */ 4);
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 17, /* people= */ 12);
+
+    for (int round = 0; round < 300; ++round) {
+      Collection<Event> events = calendar.events(round % 80);
+      MeetingRequest request = calendar.request(4, 4);
+
+      Assert.assertEquals(query.query(events, request), parallelQuery.query(events, request));
+    }
+  }
 }
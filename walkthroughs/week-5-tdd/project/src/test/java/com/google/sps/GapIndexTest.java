@@ -0,0 +1,135 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class GapIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1030AM = TimeRange.getTimeInMinutes(10, 30);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  @Test
+  public void earliestFitSkipsShortGaps() {
+    // Events  :       |--A--|  |--B--|
+    // Day     : |-----------------------------|
+    // 60 min after 9:00 :           ^ 11:00
+    Event first =
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A));
+    Event second =
+        new Event(
+            "Event 2",
+            TimeRange.fromStartEnd(TIME_1030AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_B));
+    GapIndex index = GapIndex.of(Arrays.asList(first, second), Arrays.asList(PERSON_A, PERSON_B));
+
+    Assert.assertEquals(TimeRange.START_OF_DAY, index.earliestFit(0, DURATION_60_MINUTES));
+    Assert.assertEquals(TIME_1100AM, index.earliestFit(TIME_0900AM, DURATION_60_MINUTES));
+    Assert.assertEquals(TIME_1000AM, index.earliestFit(TIME_0900AM, DURATION_30_MINUTES));
+    Assert.assertEquals(-1, index.earliestFit(TimeRange.END_OF_DAY - 10, DURATION_30_MINUTES));
+
+    index.remove(first);
+    Assert.assertEquals(TIME_0900AM, index.earliestFit(TIME_0900AM, DURATION_60_MINUTES));
+  }
+
+  @Test
+  public void ignoresEventsOfOtherPeople() {
+    GapIndex index = new GapIndex(Arrays.asList(PERSON_A));
+
+    boolean inserted =
+        index.insert(new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)));
+
+    Assert.assertFalse(inserted);
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.WHOLE_DAY), index.fitsInWindow(TimeRange.WHOLE_DAY, 1));
+  }
+
+  @Test
+  public void fitsInWindowAreCutAtTheWindow() {
+    GapIndex index =
+        GapIndex.of(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TIME_1000AM, TIME_1030AM, false),
+                    Arrays.asList(PERSON_A))),
+            Arrays.asList(PERSON_A));
+
+    List<TimeRange> actual =
+        index.fitsInWindow(
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false), DURATION_30_MINUTES);
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1030AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesBitmapQueryOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 23, /* people= */ 10);
+    Random random = new Random(23);
+
+    for (int round = 0; round < 200; ++round) {
+      List<Event> events = new ArrayList<>(calendar.events(round % 60, /* allowEmpty= */ false));
+      Collection<String> attendees = calendar.attendees(1 + random.nextInt(4));
+      GapIndex index = GapIndex.of(events, attendees);
+
+      // Remove a few events again, to check removal against a fresh index.
+      for (int i = 0; i < 3 && !events.isEmpty(); ++i) {
+        index.remove(events.remove(random.nextInt(events.size())));
+      }
+
+      int duration = 1 + random.nextInt(120);
+      List<TimeRange> expected =
+          new ArrayList<>(
+              new EventIndex(events).queryBitmap(new MeetingRequest(attendees, duration)));
+      Assert.assertEquals(expected, index.fitsInWindow(TimeRange.WHOLE_DAY, duration));
+
+      int after = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      int expectedStart = -1;
+      for (TimeRange free : expected) {
+        int start = Integer.max(free.start(), after);
+        int end = Integer.min(free.end(), TimeRange.END_OF_DAY);
+        if (end - start >= duration) {
+          expectedStart = start;
+          break;
+        }
+      }
+      Assert.assertEquals(expectedStart, index.earliestFit(after, duration));
+    }
+  }
+}
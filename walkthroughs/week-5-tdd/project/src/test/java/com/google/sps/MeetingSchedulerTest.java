@@ -0,0 +1,220 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MeetingSchedulerTest {
+  private static final String CANDIDATE = "Candidate";
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
+  private static final String PERSON_X = "Person X";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private EventIndex index;
+
+  @Before
+  public void setUp() {
+    // The candidate is only available from 9:00 to 12:00, and Person A is busy from 9:00 to 10:00.
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Before",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                Arrays.asList(CANDIDATE)),
+            new Event(
+                "After",
+                TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(CANDIDATE)),
+            new Event(
+                "Busy",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)));
+    index = new EventIndex(events);
+  }
+
+  private static MeetingRequest interview(String interviewer) {
+    return new MeetingRequest(Arrays.asList(CANDIDATE, interviewer), DURATION_1_HOUR);
+  }
+
+  @Test
+  public void placesAnInterviewLoop() {
+    List<MeetingRequest> requests =
+        Arrays.asList(interview(PERSON_A), interview(PERSON_B), interview(PERSON_C));
+
+    MeetingScheduler.Schedule schedule = new MeetingScheduler().schedule(index, requests);
+
+    Assert.assertTrue(schedule.isFound());
+    List<TimeRange> slots = schedule.getSlots();
+    Assert.assertEquals(3, slots.size());
+    // Person A's interview is the most constrained, but any order that fits is fine.
+    Assert.assertNotEquals(TIME_0900AM, slots.get(0).start());
+    List<Integer> starts = new ArrayList<>();
+    for (TimeRange slot : slots) {
+      starts.add(slot.start());
+    }
+    Collections.sort(starts);
+    Assert.assertEquals(Arrays.asList(TIME_0900AM, TIME_1000AM, TIME_1100AM), starts);
+    Assert.assertTrue(schedule.getNodes() > 0);
+  }
+
+  @Test
+  public void reportsWhenMeetingsDoNotFit() {
+    List<MeetingRequest> requests =
+        Arrays.asList(
+            interview(PERSON_A), interview(PERSON_B), interview(PERSON_C), interview(PERSON_D));
+
+    MeetingScheduler.Schedule schedule = new MeetingScheduler().schedule(index, requests);
+
+    Assert.assertFalse(schedule.isFound());
+    Assert.assertFalse(schedule.isGaveUp());
+    Assert.assertEquals(Arrays.asList(), schedule.getSlots());
+  }
+
+  @Test
+  public void dropsOptionalAttendeesForTheWholeBatchWhenTheyDoNotFit() {
+    // Person X is only free from 9:00 to 9:30, so X can join one of the two meetings of Person C,
+    // but not both.
+    EventIndex optionalIndex = new EventIndex(onlyFreeFrom0900To0930(PERSON_X));
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    first.addOptionalAttendee(PERSON_X);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    second.addOptionalAttendee(PERSON_X);
+
+    MeetingScheduler.Schedule one =
+        new MeetingScheduler().schedule(optionalIndex, Arrays.asList(first));
+    MeetingScheduler.Schedule both =
+        new MeetingScheduler().schedule(optionalIndex, Arrays.asList(first, second));
+
+    Assert.assertTrue(one.isOptionalFit());
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES)),
+        one.getSlots());
+    Assert.assertTrue(both.isFound());
+    Assert.assertFalse(both.isOptionalFit());
+    Assert.assertFalse(both.getSlots().get(0).overlaps(both.getSlots().get(1)));
+  }
+
+  @Test
+  public void meetingsSharingAnOptionalAttendeeDoNotOverlapWhenTheyFit() {
+    // Person X is only free from 9:00 to 9:30, and is optional in meetings of Person A and Person
+    // B. Both meetings fit at 9:00, but not both with X.
+    EventIndex optionalIndex = new EventIndex(onlyFreeFrom0900To0930(PERSON_X));
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    first.addOptionalAttendee(PERSON_X);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    second.addOptionalAttendee(PERSON_X);
+
+    MeetingScheduler.Schedule schedule =
+        new MeetingScheduler().schedule(optionalIndex, Arrays.asList(first, second));
+
+    Assert.assertTrue(schedule.isFound());
+    Assert.assertFalse(schedule.isOptionalFit());
+  }
+
+  @Test
+  public void meetingsWithOnlyOptionalAttendeesDoNotOverlap() {
+    MeetingRequest first = new MeetingRequest(Arrays.asList(), DURATION_30_MINUTES);
+    first.addOptionalAttendee(PERSON_X);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(), DURATION_30_MINUTES);
+    second.addOptionalAttendee(PERSON_X);
+
+    MeetingScheduler.Schedule schedule =
+        new MeetingScheduler().schedule(index, Arrays.asList(first, second));
+
+    Assert.assertTrue(schedule.isFound());
+    Assert.assertFalse(schedule.getSlots().get(0).overlaps(schedule.getSlots().get(1)));
+  }
+
+  private static Collection<Event> onlyFreeFrom0900To0930(String person) {
+    return Arrays.asList(
+        new Event(
+            "Before",
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(person)),
+        new Event(
+            "After",
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(person)));
+  }
+
+  @Test
+  public void givesUpAtTheNodeLimit() {
+    List<MeetingRequest> requests =
+        Arrays.asList(
+            interview(PERSON_A), interview(PERSON_B), interview(PERSON_C), interview(PERSON_D));
+
+    MeetingScheduler.Schedule schedule =
+        new MeetingScheduler(/* stepMinutes= */ 1, /* maxNodes= */ 10).schedule(index, requests);
+
+    Assert.assertFalse(schedule.isFound());
+    Assert.assertTrue(schedule.isGaveUp());
+  }
+
+  @Test
+  public void schedulesOnRandomCalendarsAreValid() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 19, /* people= */ 8);
+    MeetingScheduler scheduler = new MeetingScheduler();
+
+    for (int round = 0; round < 100; ++round) {
+      EventIndex randomIndex = new EventIndex(calendar.events(round % 20, false));
+      List<MeetingRequest> requests = new ArrayList<>();
+      for (int i = 0; i < 5; ++i) {
+        requests.add(new MeetingRequest(calendar.attendees(2), 1 + (round * 7 + i * 13) % 90));
+      }
+
+      MeetingScheduler.Schedule schedule = scheduler.schedule(randomIndex, requests);
+      if (!schedule.isFound()) {
+        continue;
+      }
+      List<TimeRange> slots = schedule.getSlots();
+      for (int i = 0; i < requests.size(); ++i) {
+        TimeRange slot = slots.get(i);
+        boolean fits = false;
+        for (TimeRange free : randomIndex.query(requests.get(i))) {
+          fits |= free.contains(slot);
+        }
+        Assert.assertTrue(fits);
+        for (int j = 0; j < i; ++j) {
+          if (!Collections.disjoint(
+              requests.get(i).getAttendees(), requests.get(j).getAttendees())) {
+            Assert.assertFalse(slot.overlaps(slots.get(j)));
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MinuteBitmapTest {
+  @Test
+  public void emptyBitmapIsOneFreeRun() {
+    MinuteBitmap bitmap = new MinuteBitmap();
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), bitmap.freeRuns(1));
+  }
+
+  @Test
+  public void busyRangesCrossWordBoundaries() {
+    // Minutes 60 to 130 span three 64-bit words.
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.setBusy(TimeRange.fromStartEnd(60, 130, false));
+
+    Assert.assertFalse(bitmap.isBusy(59));
+    Assert.assertTrue(bitmap.isBusy(60));
+    Assert.assertTrue(bitmap.isBusy(64));
+    Assert.assertTrue(bitmap.isBusy(129));
+    Assert.assertFalse(bitmap.isBusy(130));
+
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(0, 60, false),
+            TimeRange.fromStartEnd(130, TimeRange.END_OF_DAY, true));
+    Assert.assertEquals(expected, bitmap.freeRuns(1));
+  }
+
+  @Test
+  public void orCombinesBusyMinutes() {
+    MinuteBitmap first = new MinuteBitmap();
+    first.setBusy(TimeRange.fromStartEnd(0, 600, false));
+    MinuteBitmap second = new MinuteBitmap();
+    second.setBusy(TimeRange.fromStartEnd(630, TimeRange.END_OF_DAY, true));
+
+    first.or(second);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(600, 630, false)), first.freeRuns(30));
+    Assert.assertEquals(Arrays.asList(), first.freeRuns(31));
+  }
+
+  @Test
+  public void fullyBusyDayHasNoFreeRuns() {
+    MinuteBitmap bitmap = new MinuteBitmap();
+    bitmap.setBusy(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(Arrays.asList(), bitmap.freeRuns(1));
+  }
+}
@@ -0,0 +1,162 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MultiDayCalendarTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100PM = TimeRange.getTimeInMinutes(23, 0);
+  private static final int TIME_0200AM = TimeRange.getTimeInMinutes(2, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+  private static final int DAY = EpochTimeRange.MINUTES_PER_DAY;
+
+  private static final long MONDAY = 20000;
+
+  private static long minute(long day, int minuteOfDay) {
+    return EpochTimeRange.startOfDay(day) + minuteOfDay;
+  }
+
+  @Test
+  public void eventAcrossMidnightBlocksBothDays() {
+    // Day 1 : |------------------|--A--|
+    // Day 2 : |-A-|----------------------|
+    MultiDayCalendar calendar =
+        new MultiDayCalendar.Builder()
+            .addEvent(
+                "Night shift",
+                EpochTimeRange.fromStartEnd(
+                    minute(MONDAY, TIME_1100PM), minute(MONDAY + 1, TIME_0200AM)),
+                Arrays.asList(PERSON_A))
+            .build();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    List<EpochTimeRange> actual =
+        calendar.findSlots(
+            request, EpochTimeRange.fromStartDuration(minute(MONDAY, 0), 2 * DAY), 10);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            EpochTimeRange.fromStartEnd(minute(MONDAY, 0), minute(MONDAY, TIME_1100PM)),
+            EpochTimeRange.fromStartEnd(
+                minute(MONDAY + 1, TIME_0200AM), minute(MONDAY + 1, TimeRange.END_OF_DAY + 1))),
+        actual);
+  }
+
+  @Test
+  public void stopsAtMaxSlotsInTimeOrder() {
+    // Every day : |---|-A-|--------------|
+    MultiDayCalendar calendar =
+        new MultiDayCalendar.Builder()
+            .addRecurringEvent(
+                new RecurringEvent(
+                    "Standup",
+                    TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                    Arrays.asList(PERSON_A),
+                    (int) MONDAY,
+                    /* intervalDays= */ 1))
+            .build();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    List<EpochTimeRange> actual =
+        calendar.findSlots(
+            request, EpochTimeRange.fromStartDuration(minute(MONDAY, 0), 30 * DAY), 3);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            EpochTimeRange.fromStartEnd(minute(MONDAY, 0), minute(MONDAY, TIME_0900AM)),
+            EpochTimeRange.fromStartEnd(
+                minute(MONDAY, TIME_1000AM), minute(MONDAY, TimeRange.END_OF_DAY + 1)),
+            EpochTimeRange.fromStartEnd(minute(MONDAY + 1, 0), minute(MONDAY + 1, TIME_0900AM))),
+        actual);
+  }
+
+  @Test
+  public void slotsAreCutToTheWindow() {
+    MultiDayCalendar calendar = new MultiDayCalendar.Builder().build();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    EpochTimeRange window =
+        EpochTimeRange.fromStartEnd(minute(MONDAY, TIME_1100PM), minute(MONDAY + 1, TIME_0200AM));
+
+    List<EpochTimeRange> actual = calendar.findSlots(request, window, 10);
+
+    // The meeting cannot run over midnight, so each day's part of the window is a separate slot.
+    Assert.assertEquals(
+        Arrays.asList(
+            EpochTimeRange.fromStartEnd(minute(MONDAY, TIME_1100PM), minute(MONDAY + 1, 0)),
+            EpochTimeRange.fromStartEnd(minute(MONDAY + 1, 0), minute(MONDAY + 1, TIME_0200AM))),
+        actual);
+  }
+
+  @Test
+  public void matchesSingleDayQueryOnRandomCalendars() {
+    RandomCalendar random = new RandomCalendar(/* seed= */ 21, /* people= */ 8);
+    MultiDayCalendar.Builder builder = new MultiDayCalendar.Builder();
+    List<List<Event>> days = new ArrayList<>();
+    for (int day = 0; day < 14; ++day) {
+      List<Event> events = random.events(10);
+      days.add(events);
+      for (Event event : events) {
+        builder.addEvent(
+            event.getTitle(),
+            EpochTimeRange.onDay(MONDAY + day, event.getWhen()),
+            event.getAttendees());
+      }
+    }
+    MultiDayCalendar calendar = builder.build();
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    for (int round = 0; round < 50; ++round) {
+      MeetingRequest request = random.request(1 + round % 3, round % 2);
+      List<EpochTimeRange> expected = new ArrayList<>();
+      for (int day = 0; day < days.size(); ++day) {
+        for (TimeRange range : query.query(days.get(day), request)) {
+          expected.add(EpochTimeRange.onDay(MONDAY + day, range));
+        }
+      }
+
+      List<EpochTimeRange> actual =
+          calendar.findSlots(
+              request,
+              EpochTimeRange.fromStartDuration(minute(MONDAY, 0), days.size() * DAY),
+              Integer.MAX_VALUE);
+
+      Assert.assertEquals(expected, actual);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void maxSlotsMustBePositive() {
+    new MultiDayCalendar.Builder()
+        .build()
+        .findSlots(
+            new MeetingRequest(Arrays.asList(PERSON_B), DURATION_1_HOUR),
+            EpochTimeRange.fromStartDuration(0, DAY),
+            0);
+  }
+}
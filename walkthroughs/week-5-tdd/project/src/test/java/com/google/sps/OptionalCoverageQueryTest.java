@@ -0,0 +1,290 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class OptionalCoverageQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private OptionalCoverageQuery query;
+
+  @Before
+  public void setUp() {
+    query = new OptionalCoverageQuery();
+  }
+
+  @Test
+  public void prefersTimesWithFewerBusyOptionalAttendees() {
+    // No time works for B, C and D, but after 10:00 only D is busy.
+    //
+    // Events  : |-----B (Opt)-----|
+    //           |-----C (Opt)-----|
+    //                             |---D (Opt)---|
+    // Day     : |-----------------------------------|
+    // Options :                   |-------1---------|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+                Arrays.asList(PERSON_B, PERSON_C)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_D)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.query(new EventIndex(events), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void mandatoryConflictsAreNeverOffered() {
+    // B is only free while A is busy, so the best we can do is to leave B out.
+    //
+    // Events  :       |--A--|
+    //           |--B--|     |---------B---------|
+    // Day     : |-----------------------------------|
+    // Options : |--1--|     |---------2---------|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.query(new EventIndex(events), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void slotStartsWhenAnOptionalAttendeeFrees() {
+    // B is busy until 10:00 and C from 11:00, so the slot between them suits everyone, and the
+    // slots on either side suit one of the two.
+    //
+    // Events  : |----B (Opt)----|
+    //                                |----C (Opt)----|
+    // Day     : |----------------------------------------|
+    // Options :                 |--1--|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.query(new EventIndex(events), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalOnlyNoGaps() {
+    // Events   : |---A---------|--B--|--------A---|
+    // Day      : |--------------------------------|
+    // Options  :
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_A, PERSON_B)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual = query.query(new EventIndex(events), request);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  @Test
+  public void matchesFindMeetingQueryWhenEveryoneCanAttend() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 13, /* people= */ 12);
+    FindMeetingQuery reference = new FindMeetingQuery();
+
+    for (int round = 0; round < 500; ++round) {
+      List<Event> events = calendar.events(round % 40, /* allowEmpty= */ false);
+      MeetingRequest request = calendar.request(3, 4);
+      if (request.getDuration() < 1) {
+        continue;
+      }
+      List<String> everyone = new ArrayList<>(request.getAttendees());
+      everyone.addAll(request.getOptionalAttendees());
+      Collection<TimeRange> everyoneFree =
+          reference.query(events, new MeetingRequest(everyone, request.getDuration()));
+      if (everyoneFree.isEmpty()) {
+        continue;
+      }
+
+      Assert.assertEquals(everyoneFree, query.query(new EventIndex(events), request));
+    }
+  }
+
+  @Test
+  public void meetingsMayCrossOptionalBusyTimes() {
+    // The optional attendees' events split A's free morning into pieces shorter than the meeting,
+    // so every meeting misses at least one of them. Starts 0 to 10 only miss B, and starts 40 to 50
+    // only miss C.
+    //
+    // Events  :    |B|    |C|    |D|  |----------A----------|
+    // Day     : |---------------------------------------------|
+    // Options : |---1---|
+    //                  |---1---|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(130, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_A)),
+            new Event("Event 2", TimeRange.fromStartEnd(30, 40, false), Arrays.asList(PERSON_B)),
+            new Event("Event 3", TimeRange.fromStartEnd(70, 80, false), Arrays.asList(PERSON_C)),
+            new Event("Event 4", TimeRange.fromStartEnd(110, 120, false), Arrays.asList(PERSON_D)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual = query.query(new EventIndex(events), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(0, 70, false), TimeRange.fromStartEnd(40, 110, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void matchesBestSubsetsOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 44, /* people= */ 8);
+    FindMeetingQuery reference = new FindMeetingQuery();
+
+    for (int round = 0; round < 500; ++round) {
+      List<Event> events = calendar.events(round % 30, /* allowEmpty= */ false);
+      MeetingRequest request = calendar.request(2, 4);
+      if (request.getDuration() < 1) {
+        continue;
+      }
+      List<String> optional = new ArrayList<>(request.getOptionalAttendees());
+
+      // Try every subset of optional attendees, keeping the times of the largest that can meet.
+      boolean[] expected = new boolean[TimeRange.WHOLE_DAY.end()];
+      int bestSize = -1;
+      for (int subset = 0; subset < 1 << optional.size(); ++subset) {
+        List<String> attendees = new ArrayList<>(request.getAttendees());
+        for (int i = 0; i < optional.size(); ++i) {
+          if ((subset & 1 << i) != 0) {
+            attendees.add(optional.get(i));
+          }
+        }
+        Collection<TimeRange> times =
+            reference.query(events, new MeetingRequest(attendees, request.getDuration()));
+        int subsetSize = Integer.bitCount(subset);
+        if (times.isEmpty() || subsetSize < bestSize) {
+          continue;
+        }
+        if (subsetSize > bestSize) {
+          bestSize = subsetSize;
+          expected = new boolean[TimeRange.WHOLE_DAY.end()];
+        }
+        mark(expected, times);
+      }
+      if (request.getAttendees().isEmpty() && bestSize == 0 && !optional.isEmpty()) {
+        expected = new boolean[TimeRange.WHOLE_DAY.end()];
+      }
+
+      Collection<TimeRange> actual = query.query(new EventIndex(events), request);
+      boolean[] actualMinutes = new boolean[TimeRange.WHOLE_DAY.end()];
+      mark(actualMinutes, actual);
+
+      Assert.assertArrayEquals(expected, actualMinutes);
+      int previousStart = -1;
+      for (TimeRange range : actual) {
+        Assert.assertTrue(range.start() > previousStart);
+        Assert.assertTrue(range.duration() >= request.getDuration());
+        previousStart = range.start();
+      }
+    }
+  }
+
+  /** Sets the minutes covered by {@code ranges}. */
+  private static void mark(boolean[] minutes, Collection<TimeRange> ranges) {
+    for (TimeRange range : ranges) {
+      Arrays.fill(minutes, range.start(), range.end(), true);
+    }
+  }
+}
@@ -0,0 +1,159 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private AtomicInteger computations;
+  private Function<MeetingRequest, Collection<TimeRange>> engine;
+
+  @Before
+  public void setUp() {
+    computations = new AtomicInteger();
+    engine =
+        request -> {
+          computations.incrementAndGet();
+          return Arrays.asList(TimeRange.WHOLE_DAY);
+        };
+  }
+
+  private static MeetingRequest request(Collection<String> attendees, String optional) {
+    MeetingRequest request = new MeetingRequest(attendees, DURATION_30_MINUTES);
+    request.addOptionalAttendee(optional);
+    return request;
+  }
+
+  @Test
+  public void identicalRequestsShareAnEntry() {
+    QueryCache cache = new QueryCache(10);
+
+    cache.query(request(Arrays.asList(PERSON_A, PERSON_B), PERSON_C), engine);
+    Collection<TimeRange> answer =
+        cache.query(request(Arrays.asList(PERSON_B, PERSON_A), PERSON_C), engine);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), answer);
+    Assert.assertEquals(1, computations.get());
+    Assert.assertEquals(1, cache.hits());
+    Assert.assertEquals(1, cache.misses());
+  }
+
+  @Test
+  public void optionalAttendeesAndDurationArePartOfTheKey() {
+    QueryCache cache = new QueryCache(10);
+
+    cache.query(request(Arrays.asList(PERSON_A), PERSON_B), engine);
+    cache.query(request(Arrays.asList(PERSON_A), PERSON_C), engine);
+    cache.query(new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES + 1), engine);
+
+    Assert.assertEquals(3, computations.get());
+  }
+
+  @Test
+  public void invalidateAllForgetsVersions() {
+    QueryCache cache = new QueryCache(10);
+    MeetingRequest request = request(Arrays.asList(PERSON_A), PERSON_B);
+    cache.invalidate(Arrays.asList(PERSON_A, PERSON_C));
+    Assert.assertEquals(2, cache.trackedAttendees());
+
+    cache.invalidateAll();
+    cache.query(request, engine);
+    cache.query(request, engine);
+    cache.invalidate(Arrays.asList(PERSON_A));
+    cache.query(request, engine);
+
+    Assert.assertEquals(1, cache.trackedAttendees());
+    Assert.assertEquals(2, computations.get());
+  }
+
+  @Test
+  public void tooManyInvalidatedAttendeesInvalidateEverything() {
+    QueryCache cache = new QueryCache(10, /* maxVersions= */ 3);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    cache.query(request, engine);
+
+    for (int i = 0; i < 100; ++i) {
+      cache.invalidate(Arrays.asList("Person " + i));
+      Assert.assertTrue(cache.trackedAttendees() <= 3);
+    }
+    cache.query(request, engine);
+
+    // Person A was never invalidated, but the cache had to start a new epoch.
+    Assert.assertEquals(2, computations.get());
+  }
+
+  @Test
+  public void invalidationOnlyAffectsInvolvedAttendees() {
+    QueryCache cache = new QueryCache(10);
+    MeetingRequest involved = request(Arrays.asList(PERSON_A), PERSON_B);
+    MeetingRequest uninvolved = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    cache.query(involved, engine);
+    cache.query(uninvolved, engine);
+
+    cache.invalidate(Arrays.asList(PERSON_B));
+    cache.query(involved, engine);
+    cache.query(uninvolved, engine);
+
+    Assert.assertEquals(3, computations.get());
+    Assert.assertEquals(1, cache.version());
+  }
+
+  @Test
+  public void invalidateAllDropsEverything() {
+    QueryCache cache = new QueryCache(10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    cache.query(request, engine);
+
+    cache.invalidateAll();
+    cache.query(request, engine);
+
+    Assert.assertEquals(2, computations.get());
+  }
+
+  @Test
+  public void leastRecentlyUsedEntryIsEvicted() {
+    QueryCache cache = new QueryCache(2);
+    MeetingRequest a = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest b = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest c = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    cache.query(a, engine);
+    cache.query(b, engine);
+    cache.query(a, engine);
+
+    // b is the least recently used entry, so it makes room for c.
+    cache.query(c, engine);
+    cache.query(a, engine);
+    cache.query(b, engine);
+
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(4, computations.get());
+  }
+}
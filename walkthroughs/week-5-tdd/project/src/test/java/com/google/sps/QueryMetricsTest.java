@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.sps.QueryMetrics.Metric;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryMetricsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private Collection<Event> events;
+  private MeetingRequest request;
+
+  @Before
+  public void setUp() {
+    // Events  : |--A--|
+    //              |--A--|
+    //                        |--B--|
+    events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM + 10, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_1000AM, TIME_1000AM + 30, false),
+                Arrays.asList(PERSON_B)));
+    request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    QueryMetrics.reset();
+  }
+
+  @After
+  public void tearDown() {
+    QueryMetrics.setEnabled(false);
+    QueryMetrics.reset();
+  }
+
+  @Test
+  public void recordsEveryPhaseWhenEnabled() {
+    QueryMetrics.setEnabled(true);
+
+    new FindMeetingQuery().query(events, request);
+
+    Map<Metric, QueryMetrics.Snapshot> snapshot = QueryMetrics.snapshot();
+    for (Metric metric : Metric.values()) {
+      long expected = metric == Metric.MERGE_BUSY_LISTS_NANOS ? 0 : 1;
+      Assert.assertEquals(metric.name(), expected, snapshot.get(metric).getCount());
+    }
+    Assert.assertEquals(3, snapshot.get(Metric.EVENTS_SCANNED).getSum());
+    Assert.assertEquals(2, snapshot.get(Metric.EVENTS_MATCHED).getSum());
+    Assert.assertEquals(1, snapshot.get(Metric.INTERVALS_MERGED).getSum());
+  }
+
+  @Test
+  public void parallelQueriesRecordTheSameCounts() {
+    QueryMetrics.setEnabled(true);
+
+    new FindMeetingQuery(1).query(events, request);
+
+    Map<Metric, QueryMetrics.Snapshot> snapshot = QueryMetrics.snapshot();
+    Assert.assertEquals(3, snapshot.get(Metric.EVENTS_SCANNED).getSum());
+    Assert.assertEquals(2, snapshot.get(Metric.EVENTS_MATCHED).getSum());
+    Assert.assertEquals(1, snapshot.get(Metric.INTERVALS_MERGED).getSum());
+  }
+
+  @Test
+  public void indexQueriesRecordTheirPhases() {
+    QueryMetrics.setEnabled(true);
+
+    new EventIndex(events).query(request);
+
+    Map<Metric, QueryMetrics.Snapshot> snapshot = QueryMetrics.snapshot();
+    Assert.assertEquals(1, snapshot.get(Metric.MERGE_BUSY_LISTS_NANOS).getCount());
+    Assert.assertEquals(1, snapshot.get(Metric.COMBINE_CONFLICT_SETS_NANOS).getCount());
+    Assert.assertEquals(1, snapshot.get(Metric.GET_VALID_TIMES_NANOS).getCount());
+  }
+
+  @Test
+  public void recordsNothingWhenDisabled() {
+    new FindMeetingQuery().query(events, request);
+
+    for (QueryMetrics.Snapshot snapshot : QueryMetrics.snapshot().values()) {
+      Assert.assertEquals(0, snapshot.getCount());
+    }
+  }
+
+  @Test
+  public void percentilesAreBucketUpperBounds() {
+    QueryMetrics.setEnabled(true);
+    for (int value = 1; value <= 100; ++value) {
+      QueryMetrics.record(Metric.EVENTS_SCANNED, value);
+    }
+
+    QueryMetrics.Snapshot snapshot = QueryMetrics.snapshot().get(Metric.EVENTS_SCANNED);
+    Assert.assertEquals(63, snapshot.getP50());
+    Assert.assertEquals(100, snapshot.getP99());
+    Assert.assertEquals(100, snapshot.getMax());
+    Assert.assertEquals(50.5, snapshot.getMean(), 1e-9);
+  }
+}
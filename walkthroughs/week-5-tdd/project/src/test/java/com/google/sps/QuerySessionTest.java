@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QuerySessionTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void removingAnAttendeeFreesTheirTime() {
+    // Events  :       |--A+B--|
+    // Day     : |---------------------|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A, PERSON_B)));
+    QuerySession session =
+        new QuerySession(
+            new EventIndex(events),
+            new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+
+    session.removeAttendee(PERSON_A);
+    // Person B still holds the shared interval.
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true)),
+        session.query());
+
+    session.removeAttendee(PERSON_B);
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), session.query());
+  }
+
+  @Test
+  public void addingAMandatoryAttendeeMakesThemNonOptional() {
+    QuerySession session =
+        new QuerySession(
+            new EventIndex(Arrays.<Event>asList()),
+            new MeetingRequest(Arrays.<String>asList(), DURATION_30_MINUTES));
+
+    session.addOptionalAttendee(PERSON_A);
+    session.addAttendee(PERSON_A);
+
+    Assert.assertEquals(Arrays.asList(PERSON_A), new ArrayList<>(session.getAttendees()));
+    Assert.assertTrue(session.getOptionalAttendees().isEmpty());
+  }
+
+  @Test
+  public void matchesEventIndexAfterRandomEdits() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 17, /* people= */ 10);
+    Random random = new Random(17);
+
+    for (int round = 0; round < 50; ++round) {
+      EventIndex index = new EventIndex(calendar.events(round % 60));
+      QuerySession session = new QuerySession(index, calendar.request(3, 3));
+      assertMatchesAfterRandomEdits(index, session, random);
+    }
+  }
+
+  @Test
+  public void matchesEventIndexAfterRandomEditsOnCrowdedCalendars() {
+    // Many events per person, so that edits merge and split long blocks of busy time.
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 18, /* people= */ 6);
+    Random random = new Random(18);
+
+    for (int round = 0; round < 20; ++round) {
+      EventIndex index = new EventIndex(calendar.events(100 + 10 * round));
+      QuerySession session = new QuerySession(index, calendar.request(2, 2));
+      assertMatchesAfterRandomEdits(index, session, random);
+    }
+  }
+
+  private static void assertMatchesAfterRandomEdits(
+      EventIndex index, QuerySession session, Random random) {
+    for (int edit = 0; edit < 40; ++edit) {
+      String person = RandomCalendar.person(random.nextInt(10));
+      switch (random.nextInt(5)) {
+        case 0:
+          session.addAttendee(person);
+          break;
+        case 1:
+          session.removeAttendee(person);
+          break;
+        case 2:
+          session.addOptionalAttendee(person);
+          break;
+        case 3:
+          session.removeOptionalAttendee(person);
+          break;
+        default:
+          session.setDuration(random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(120));
+      }
+
+      MeetingRequest request = new MeetingRequest(session.getAttendees(), session.getDuration());
+      for (String attendee : session.getOptionalAttendees()) {
+        request.addOptionalAttendee(attendee);
+      }
+      Assert.assertEquals(index.query(request), session.query());
+    }
+  }
+}
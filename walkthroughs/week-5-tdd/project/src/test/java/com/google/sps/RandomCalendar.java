@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
+/** Generates reproducible random calendars for comparing query engines against each other. */
+final class RandomCalendar {
+  private final Random random;
+  private final int people;
+
+  /**
+   * @param seed the seed for the underlying random number generator
+   * @param people the number of distinct people that may attend events
+   */
+  RandomCalendar(long seed, int people) {
+    this.random = new Random(seed);
+    this.people = people;
+  }
+
+  /** Returns the name of person {@code index}. */
+  static String person(int index) {
+    return "Person " + index;
+  }
+
+  /**
+   * Returns {@code count} random events. Events may be empty, overlap each other, share start times
+   * or touch the start and end of the day.
+   */
+  List<Event> events(int count) {
+    return events(count, /* allowEmpty= */ true);
+  }
+
+  /** Returns {@code count} random events, none of them empty unless {@code allowEmpty} is set. */
+  List<Event> events(int count, boolean allowEmpty) {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration());
+      int duration = allowEmpty && random.nextInt(8) == 0 ? 0 : 1 + random.nextInt(180);
+      int end = Integer.min(start + duration, TimeRange.WHOLE_DAY.end());
+      events.add(
+          new Event(
+              "Event " + i,
+              TimeRange.fromStartEnd(start, end, false),
+              attendees(1 + random.nextInt(3))));
+    }
+    return events;
+  }
+
+  /** Returns up to {@code count} random people. */
+  Collection<String> attendees(int count) {
+    List<String> attendees = new ArrayList<>();
+    for (int i = 0; i < count; ++i) {
+      attendees.add(person(random.nextInt(people)));
+    }
+    return attendees;
+  }
+
+  /** Returns a random request with up to the given numbers of mandatory and optional attendees. */
+  MeetingRequest request(int mandatory, int optional) {
+    long duration = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(120);
+    MeetingRequest request = new MeetingRequest(attendees(random.nextInt(mandatory + 1)), duration);
+    for (String attendee : attendees(random.nextInt(optional + 1))) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+}
@@ -0,0 +1,142 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RankedSlotQueryTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1030AM = TimeRange.getTimeInMinutes(10, 30);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private EventIndex index;
+  private RankedSlotQuery query;
+
+  @Before
+  public void setUp() {
+    // Events  : |----A----|  |--A--|        |----A----|
+    // Day     : |-------------------------------------|
+    //          0:00     9:00 10:00 10:30   17:00
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1000AM, TIME_1030AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_0500PM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_A)));
+    index = new EventIndex(events);
+    query = new RankedSlotQuery();
+  }
+
+  @Test
+  public void defaultPreferencesReturnEarliestSlots() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+
+    List<TimeRange> actual = query.query(index, request, new SlotPreferences(), 2);
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+            TimeRange.fromStartDuration(TIME_1030AM, DURATION_60_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void hugeLimitReturnsEveryCandidate() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+
+    List<TimeRange> actual = query.query(index, request, new SlotPreferences(), Integer.MAX_VALUE);
+
+    Assert.assertEquals(TIME_0900AM, actual.get(0).start());
+    Assert.assertTrue(actual.size() < 20);
+  }
+
+  @Test
+  public void slotsClosestToTargetComeFirst() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    SlotPreferences preferences = new SlotPreferences();
+    preferences.setTargetTime(TIME_1200PM);
+
+    List<TimeRange> actual = query.query(index, request, preferences, 1);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_1200PM, DURATION_30_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void avoidingFragmentationPrefersSlotsFlushWithTheGap() {
+    // Aiming for 9:15 would leave 15 unusable minutes on both sides of the meeting.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    SlotPreferences preferences = new SlotPreferences();
+    preferences.setTargetTime(TIME_0900AM + 15);
+    preferences.setAvoidFragmentation(true);
+
+    List<TimeRange> actual = query.query(index, request, preferences, 1);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void slotsOutsidePreferredHoursRankLast() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    SlotPreferences preferences = new SlotPreferences();
+    preferences.setPreferredHours(TimeRange.fromStartEnd(TIME_1200PM, TIME_0500PM, false));
+
+    List<TimeRange> actual = query.query(index, request, preferences, 3);
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartDuration(TIME_1200PM, DURATION_60_MINUTES),
+            TimeRange.fromStartDuration(TIME_0500PM - DURATION_60_MINUTES, DURATION_60_MINUTES),
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void noSlotsWhenNothingFits() {
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A), TimeRange.WHOLE_DAY.duration() + 1);
+
+    List<TimeRange> actual = query.query(index, request, new SlotPreferences(), 3);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+}
@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final int MONDAY = 100;
+  private static final int WEEK = 7;
+
+  @Test
+  public void weeklyEventWithExceptionAndEnd() {
+    RecurringEvent review =
+        new RecurringEvent(
+            "Review",
+            TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A),
+            MONDAY,
+            WEEK,
+            MONDAY + 3 * WEEK,
+            Arrays.asList(MONDAY + WEEK));
+
+    Assert.assertFalse(review.occursOn(MONDAY - WEEK));
+    Assert.assertTrue(review.occursOn(MONDAY));
+    Assert.assertFalse(review.occursOn(MONDAY + 1));
+    Assert.assertFalse(review.occursOn(MONDAY + WEEK));
+    Assert.assertTrue(review.occursOn(MONDAY + 2 * WEEK));
+    Assert.assertTrue(review.occursOn(MONDAY + 3 * WEEK));
+    Assert.assertFalse(review.occursOn(MONDAY + 4 * WEEK));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void intervalMustBePositive() {
+    new RecurringEvent("Standup", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A), MONDAY, 0);
+  }
+
+  @Test
+  public void recurringEventOnlyConflictsOnItsDays() {
+    // Events  :       |--A--|
+    // Day     : |---------------------|
+    // Options : |-----|     |---------|   (on days the standup occurs)
+    Collection<RecurringEvent> recurring =
+        Arrays.asList(
+            new RecurringEvent(
+                "Standup",
+                TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A),
+                MONDAY,
+                /* intervalDays= */ 2));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    Collection<TimeRange> standupDay =
+        query.query(Arrays.<Event>asList(), recurring, MONDAY + 2, request);
+    Collection<TimeRange> freeDay =
+        query.query(Arrays.<Event>asList(), recurring, MONDAY + 1, request);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true)),
+        standupDay);
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), freeDay);
+  }
+
+  @Test
+  public void matchesExpandedEventsOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 13, /* people= */ 12);
+    Random random = new Random(13);
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    for (int round = 0; round < 300; ++round) {
+      List<Event> oneOffEvents = calendar.events(round % 20);
+      List<RecurringEvent> recurring = new ArrayList<>();
+      for (Event event : calendar.events(round % 40)) {
+        int firstDay = random.nextInt(10);
+        recurring.add(
+            new RecurringEvent(
+                event.getTitle(),
+                event.getWhen(),
+                event.getAttendees(),
+                firstDay,
+                1 + random.nextInt(7),
+                random.nextBoolean() ? RecurringEvent.FOREVER : firstDay + random.nextInt(30),
+                Arrays.asList(random.nextInt(30))));
+      }
+      int day = random.nextInt(30);
+      List<Event> expanded = new ArrayList<>(oneOffEvents);
+      for (RecurringEvent event : recurring) {
+        if (event.occursOn(day)) {
+          expanded.add(event.on(day));
+        }
+      }
+      MeetingRequest request = calendar.request(4, 4);
+
+      Assert.assertEquals(
+          query.query(expanded, request), query.query(oneOffEvents, recurring, day, request));
+    }
+  }
+}
@@ -0,0 +1,164 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SlotIteratorTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0910AM = TimeRange.getTimeInMinutes(9, 10);
+  private static final int TIME_0915AM = TimeRange.getTimeInMinutes(9, 15);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int QUARTER_HOUR = 15;
+
+  @Test
+  public void windowAndAlignmentCutSlots() {
+    // Events  :          |-A-|    |--B--|
+    // Window  :     |------------------------|
+    // Options :     |----|   |-|  |     |----|   (starts on quarter hours)
+    EventIndex index =
+        new EventIndex(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TIME_0900AM, TIME_0910AM, false),
+                    Arrays.asList(PERSON_A)),
+                new Event(
+                    "Event 2",
+                    TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+                    Arrays.asList(PERSON_B))));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        index
+            .slotStream(
+                request, TimeRange.fromStartEnd(TIME_0800AM, TIME_0500PM, false), QUARTER_HOUR)
+            .collect(Collectors.toList());
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0915AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_0500PM, false)),
+        actual);
+  }
+
+  @Test
+  public void findFirstStopsEarly() {
+    EventIndex index =
+        new EventIndex(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1200PM, false),
+                    Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Optional<TimeRange> first = index.slotStream(request, TimeRange.WHOLE_DAY, 1).findFirst();
+
+    Assert.assertEquals(
+        Optional.of(TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true)), first);
+  }
+
+  @Test
+  public void exhaustedIteratorHasNoNext() {
+    EventIndex index = new EventIndex(Arrays.<Event>asList());
+    Iterator<TimeRange> slots =
+        index.slots(
+            new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES),
+            TimeRange.WHOLE_DAY,
+            1);
+
+    Assert.assertEquals(TimeRange.WHOLE_DAY, slots.next());
+    Assert.assertFalse(slots.hasNext());
+  }
+
+  @Test
+  public void matchesQueryOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 22, /* people= */ 12);
+
+    for (int round = 0; round < 500; ++round) {
+      EventIndex index = new EventIndex(calendar.events(round % 30));
+      MeetingRequest request = calendar.request(1 + round % 4, round % 3);
+
+      List<TimeRange> actual = new ArrayList<>();
+      index.slots(request, TimeRange.WHOLE_DAY, 1).forEachRemaining(actual::add);
+
+      Assert.assertEquals(new ArrayList<>(index.query(request)), actual);
+    }
+  }
+
+  @Test
+  public void matchesCutQueryOnRandomCalendars() {
+    RandomCalendar calendar = new RandomCalendar(/* seed= */ 23, /* people= */ 12);
+    Random random = new Random(23);
+
+    for (int round = 0; round < 500; ++round) {
+      EventIndex index = new EventIndex(calendar.events(round % 30));
+      MeetingRequest request = calendar.request(1 + round % 4, round % 3);
+      int start = random.nextInt(TimeRange.WHOLE_DAY.end());
+      int end = start + random.nextInt(TimeRange.WHOLE_DAY.end() - start + 1);
+      TimeRange window = TimeRange.fromStartEnd(start, end, false);
+      int alignment = 1 + random.nextInt(60);
+
+      List<TimeRange> actual =
+          index.slotStream(request, window, alignment).collect(Collectors.toList());
+
+      Assert.assertEquals(cut(index.query(request), request, window, alignment), actual);
+    }
+  }
+
+  /** Cuts every slot of a whole-day answer to a window and alignment. */
+  private static List<TimeRange> cut(
+      Collection<TimeRange> slots, MeetingRequest request, TimeRange window, int alignment) {
+    List<TimeRange> cut = new ArrayList<>();
+    for (TimeRange slot : slots) {
+      int start = Integer.max(slot.start(), window.start());
+      start = (start + alignment - 1) / alignment * alignment;
+      int end = Integer.min(slot.end(), window.end());
+      if (end == TimeRange.WHOLE_DAY.end()) {
+        if (TimeRange.END_OF_DAY - start >= request.getDuration()) {
+          cut.add(TimeRange.fromStartEnd(start, TimeRange.END_OF_DAY, true));
+        }
+      } else if (end - start >= request.getDuration()) {
+        cut.add(TimeRange.fromStartEnd(start, end, false));
+      }
+    }
+    return cut;
+  }
+}
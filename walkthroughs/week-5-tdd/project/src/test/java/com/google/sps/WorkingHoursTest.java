@@ -0,0 +1,103 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class WorkingHoursTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0100AM = TimeRange.getTimeInMinutes(1, 0);
+  private static final int TIME_0700AM = TimeRange.getTimeInMinutes(7, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_0300PM = TimeRange.getTimeInMinutes(15, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int UTC_PLUS_2 = 2 * 60;
+  private static final int UTC_MINUS_8 = -8 * 60;
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void windowIsShiftedToUtc() {
+    WorkingHours hours = new WorkingHours(TIME_0900AM, TIME_0500PM, UTC_PLUS_2);
+
+    Assert.assertArrayEquals(
+        new long[] {
+          PackedIntervals.pack(TimeRange.START_OF_DAY, TIME_0700AM),
+          PackedIntervals.pack(TIME_0300PM, TimeRange.WHOLE_DAY.end())
+        },
+        hours.offHours());
+  }
+
+  @Test
+  public void windowWrapsAroundMidnight() {
+    // 9:00 to 17:00 at UTC-08:00 is 17:00 to 1:00 UTC.
+    WorkingHours hours = new WorkingHours(TIME_0900AM, TIME_0500PM, UTC_MINUS_8);
+
+    Assert.assertArrayEquals(
+        new long[] {PackedIntervals.pack(TIME_0100AM, TIME_0500PM)}, hours.offHours());
+  }
+
+  @Test
+  public void wholeDayHasNoOffHours() {
+    WorkingHours hours = new WorkingHours(TimeRange.START_OF_DAY, 24 * 60, UTC_MINUS_8);
+
+    Assert.assertEquals(0, hours.offHours().length);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEmptyWindow() {
+    new WorkingHours(TIME_0900AM, TIME_0900AM, 0);
+  }
+
+  @Test
+  public void queryStaysWithinEveryonesWorkingHours() {
+    // Working : |A 7:00 - 15:00 UTC|, |B 17:00 - 1:00 UTC| and A busy 9:00 to 10:00.
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_A)));
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, new WorkingHours(TIME_0900AM, TIME_0500PM, UTC_PLUS_2));
+    workingHours.put(PERSON_B, new WorkingHours(TIME_0900AM, TIME_0500PM, UTC_MINUS_8));
+    EventIndex index = new EventIndex(events, workingHours);
+
+    MeetingRequest onlyA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0700AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_0300PM, false)),
+        index.query(onlyA));
+    Assert.assertEquals(index.query(onlyA), index.queryBitmap(onlyA));
+
+    MeetingRequest both =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    Assert.assertEquals(Arrays.asList(), index.query(both));
+  }
+}